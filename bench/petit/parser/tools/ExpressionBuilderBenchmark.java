@@ -0,0 +1,36 @@
+package petit.parser.tools;
+
+import static petit.parser.primitive.CharacterParser.digit;
+import static petit.parser.primitive.CharacterParser.of;
+
+import java.util.List;
+
+import petit.parser.PetitParser;
+import pp.grammar.GrammarBenchmark;
+
+/**
+ * Benchmarks an arithmetic evaluator built with {@link ExpressionBuilder}, on a sum of {@code size} terms.
+ */
+public class ExpressionBuilderBenchmark extends GrammarBenchmark {
+
+  @Override
+  protected PetitParser parser() {
+    var builder = new ExpressionBuilder();
+    builder.group().primitive(digit().plus().seq(of('.').seq(digit().plus()).optional()).flatten().trim().map(Double::parseDouble)).wrapper(of('(').trim(), of(')').trim(), (List<Double> values) -> values.get(1));
+    builder.group().prefix(of('-').trim(), (List<Double> values) -> -values.get(1));
+    builder.group().right(of('^').trim(), (List<Double> values) -> Math.pow(values.get(0), values.get(2)));
+    builder.group().left(of('*').trim(), (List<Double> values) -> values.get(0) * values.get(2)).left(of('/').trim(), (List<Double> values) -> values.get(0) / values.get(2));
+    builder.group().left(of('+').trim(), (List<Double> values) -> values.get(0) + values.get(2)).left(of('-').trim(), (List<Double> values) -> values.get(0) - values.get(2));
+    return builder.build().end();
+  }
+
+  @Override
+  protected String input(int size) {
+    var buffer = new StringBuilder("0");
+    for (var i = 0; i < size; i++) {
+      buffer.append(" + (").append(i).append(".5 * -2 ^ 2 - 3) / 4");
+    }
+    return buffer.toString();
+  }
+
+}
@@ -0,0 +1,63 @@
+package petit.parser.utils;
+
+import static petit.parser.primitive.CharacterParser.digit;
+import static petit.parser.primitive.CharacterParser.of;
+import static petit.parser.primitive.CharacterParser.word;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import petit.parser.PetitParser;
+import petit.parser.combinators.ChoiceParser;
+import petit.parser.primitive.StringParser;
+
+/**
+ * Measures {@link Optimizer#removeDuplicates()} and a full {@link Optimizer} run on a generated grammar of {@code size} productions.
+ * <p>
+ * Every production is a keyword followed by the same few sub-parsers, rebuilt each time, so that most of the graph consists of duplicates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class OptimizerBenchmark {
+
+  @Param({"100", "1000", "10000"})
+  public int size;
+
+  private PetitParser grammar;
+
+  @Setup
+  public void setup() {
+    var productions = new PetitParser[size];
+    for (var i = 0; i < size; i++) {
+      productions[i] = StringParser.of("keyword" + i).trim()
+          .seq(word().plus().flatten().trim(), of('=').trim(), digit().plus().flatten().trim().settable(), of(';').trim());
+    }
+    grammar = new ChoiceParser(productions).end();
+  }
+
+  @Benchmark
+  public PetitParser removeDuplicates() {
+    return new Optimizer().removeDuplicates().transform(grammar);
+  }
+
+  @Benchmark
+  public PetitParser optimize() {
+    return new Optimizer().removeDelegates().removeDuplicates().fuseSpans().flattenNested().transform(grammar);
+  }
+
+}
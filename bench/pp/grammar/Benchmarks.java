@@ -0,0 +1,29 @@
+package pp.grammar;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the grammar benchmarks with allocation profiling ({@code gc.alloc.rate}) enabled.
+ * <p>
+ * Accepts the usual JMH command line options, for example a benchmark name pattern or {@code -p size=100}.
+ */
+public class Benchmarks {
+
+  public static void main(String... args) throws Exception {
+    var options = new OptionsBuilder()
+        .parent(new CommandLineOptions(args))
+        .addProfiler(GCProfiler.class)
+        .build();
+    try {
+      new Runner(options).run();
+    } catch (RunnerException e) {
+      System.err.println(e.getMessage());
+      System.exit(1);
+    }
+  }
+
+}
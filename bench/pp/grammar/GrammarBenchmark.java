@@ -0,0 +1,70 @@
+package pp.grammar;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import petit.parser.PetitParser;
+import petit.parser.context.Result;
+
+/**
+ * Measures a grammar with {@link PetitParser#parse(CharSequence)} and {@link PetitParser#accept(CharSequence)}, on inputs of several sizes.
+ * <p>
+ * Subclasses provide the parser and an input that repeats a representative fragment {@code size} times.
+ * The input is validated once during setup, so that a broken grammar cannot produce misleading numbers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public abstract class GrammarBenchmark {
+
+  @Param({"1", "10", "100", "1000"})
+  public int size;
+
+  protected PetitParser parser;
+  protected String input;
+
+  /**
+   * Returns the parser to measure.
+   */
+  protected abstract PetitParser parser();
+
+  /**
+   * Returns an input of the given {@code size}.
+   */
+  protected abstract String input(int size);
+
+  @Setup
+  public void setup() {
+    parser = parser();
+    input = input(size);
+    var result = parser.parse(input);
+    if (result.isFailure() || !parser.accept(input)) {
+      throw new IllegalStateException("Invalid benchmark input: " + result);
+    }
+  }
+
+  @Benchmark
+  public Result parse() {
+    return parser.parse(input);
+  }
+
+  @Benchmark
+  public boolean accept() {
+    return parser.accept(input);
+  }
+
+}
@@ -0,0 +1,31 @@
+package pp.grammar.json;
+
+import petit.parser.PetitParser;
+import pp.grammar.GrammarBenchmark;
+
+/**
+ * Benchmarks {@link JsonParser} on an array of {@code size} objects.
+ */
+public class JsonParserBenchmark extends GrammarBenchmark {
+
+  @Override
+  protected PetitParser parser() {
+    return new JsonParser();
+  }
+
+  @Override
+  protected String input(int size) {
+    var buffer = new StringBuilder("[");
+    for (var i = 0; i < size; i++) {
+      if (i > 0) {
+        buffer.append(",\n");
+      }
+      buffer.append("{\"id\": ").append(i)
+          .append(", \"name\": \"item \\\"").append(i).append("\\\" \\u00e9\"")
+          .append(", \"price\": -12.5e-3, \"tags\": [\"a\", \"b\", null, true, false]")
+          .append(", \"nested\": {\"empty\": {}, \"list\": []}}");
+    }
+    return buffer.append("]").toString();
+  }
+
+}
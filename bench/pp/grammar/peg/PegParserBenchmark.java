@@ -0,0 +1,33 @@
+package pp.grammar.peg;
+
+import petit.parser.PetitParser;
+import pp.grammar.GrammarBenchmark;
+
+/**
+ * Benchmarks {@link PegParser} on a grammar of {@code size} copies of the PEG meta-grammar.
+ */
+public class PegParserBenchmark extends GrammarBenchmark {
+
+  private static final String RULES = """
+      grammar <- ( nonterminal '<-' sp pattern )+
+      pattern <- alternative ( '/' sp alternative )*
+      alternative <- ( [!&]? sp suffix )+
+      suffix <- primary ( [*+?] sp )*
+      primary <- '(' sp pattern ')' sp / '.' sp / literal / charclass / nonterminal !'<-'
+      literal <- ['] ( !['] . )* ['] sp
+      charclass <- '[' ( !']' ( . '-' . / . ) )* ']' sp
+      nonterminal <- [a-zA-Z]+ sp
+      sp <- [ \\t\\n]*
+      """;
+
+  @Override
+  protected PetitParser parser() {
+    return new PegParser();
+  }
+
+  @Override
+  protected String input(int size) {
+    return RULES.repeat(size);
+  }
+
+}
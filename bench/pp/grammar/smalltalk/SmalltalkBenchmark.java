@@ -0,0 +1,28 @@
+package pp.grammar.smalltalk;
+
+import petit.parser.PetitParser;
+import pp.grammar.GrammarBenchmark;
+
+/**
+ * Benchmarks {@link SmalltalkDefinition} on a method of {@code size} groups of statements.
+ */
+public class SmalltalkBenchmark extends GrammarBenchmark {
+
+  @Override
+  protected PetitParser parser() {
+    return new SmalltalkDefinition().build();
+  }
+
+  @Override
+  protected String input(int size) {
+    var buffer = new StringBuilder("at: anIndex put: anObject\n  | a b c |\n");
+    for (var i = 0; i < size; i++) {
+      buffer.append("  self at: ").append(i).append(" put: (anIndex * 2 max: c).\n")
+          .append("  #(1 $a 'string' #symbol 2.5) collect: [ :each | each printString ].\n")
+          .append("  self foo: a bar: (b at: 1) ; yourself.\n")
+          .append("  a > b ifTrue: [ ^ anObject ] ifFalse: [ c := nil ].\n");
+    }
+    return buffer.append("  ^ anObject").toString();
+  }
+
+}
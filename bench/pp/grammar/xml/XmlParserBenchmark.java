@@ -0,0 +1,31 @@
+package pp.grammar.xml;
+
+import petit.parser.PetitParser;
+import pp.grammar.GrammarBenchmark;
+
+/**
+ * Benchmarks {@link XmlParser} on a catalog of {@code size} books.
+ */
+public class XmlParserBenchmark extends GrammarBenchmark {
+
+  @Override
+  protected PetitParser parser() {
+    return new XmlParser();
+  }
+
+  @Override
+  protected String input(int size) {
+    var buffer = new StringBuilder("<?xml version=\"1.0\"?>\n<catalog>\n");
+    for (var i = 0; i < size; i++) {
+      buffer.append("  <book id=\"bk").append(i).append("\">\n")
+          .append("    <author>Gambardella, Matthew</author>\n")
+          .append("    <title>XML Developer&apos;s Guide</title>\n")
+          .append("    <price>44.95</price>\n")
+          .append("    <!-- reviewed -->\n")
+          .append("    <description><![CDATA[An in-depth look at <XML>.]]></description>\n")
+          .append("  </book>\n");
+    }
+    return buffer.append("</catalog>\n").toString();
+  }
+
+}
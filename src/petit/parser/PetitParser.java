@@ -8,11 +8,16 @@ import petit.parser.actions.TrimmingParser;
 import petit.parser.combinators.AndParser;
 import petit.parser.combinators.ChoiceParser;
 import petit.parser.combinators.EndOfInputParser;
+import petit.parser.combinators.FrozenParser;
+import petit.parser.combinators.LeftRecursiveParser;
+import petit.parser.combinators.MemoParser;
+import petit.parser.combinators.MemoTable;
 import petit.parser.combinators.NotParser;
 import petit.parser.combinators.OptionalParser;
 import petit.parser.combinators.SequenceParser;
 import petit.parser.combinators.SettableParser;
 import petit.parser.context.Context;
+import petit.parser.context.MutableContext;
 import petit.parser.context.Result;
 import petit.parser.context.Token;
 import petit.parser.primitive.CharacterParser;
@@ -22,6 +27,7 @@ import petit.parser.repeating.PossessiveRepeatingParser;
 import petit.parser.repeating.RepeatingParser;
 import petit.parser.utils.FailureJoiner;
 import petit.parser.utils.Functions;
+import petit.parser.utils.Mirror;
 import static petit.parser.primitive.CharacterParser.any;
 
 import java.util.List;
@@ -34,9 +40,20 @@ import java.util.function.Function;
 
 /**
  * An abstract parser that forms the root of all parsers in this package.
+ * <p>
+ * Parsers keep no state between or during parses: the parse state lives in the {@link Context} or {@link MutableContext},
+ * and memoized results are kept per thread, see {@link MemoTable}.
+ * A parser graph can therefore be shared by any number of threads parsing concurrently, provided that it is not modified meanwhile
+ * (see {@link #replace(PetitParser, PetitParser)} and {@link SettableParser#set(PetitParser)}),
+ * and that the functions of its actions and continuations are safe to call concurrently.
+ * A graph that is shared that way is best frozen first, see {@link #freeze()}.
  */
 public abstract class PetitParser {
 
+  private static final int STRUCTURAL_HASH_DEPTH = 3;
+
+  private boolean frozen;
+
   /**
    * Primitive method doing the actual parsing.
    * <p>
@@ -56,32 +73,69 @@ public abstract class PetitParser {
    * <p>
    * Subclasses don't necessarily have to override this method, since it is emulated using its slower brother.
    */
-  public int fastParseOn(String buffer, int position) {
+  public int fastParseOn(CharSequence buffer, int position) {
     var result = parseOn(new Context(buffer, position));
     return result.isSuccess() ? result.getPosition() : -1;
   }
 
+  /**
+   * Primitive method doing the actual parsing on a {@link MutableContext}.
+   * <p>
+   * This method is an alternative to {@link #parseOn(Context)} that avoids allocating intermediate results, by updating the position, value and failure state of the single mutable {@code context}.
+   * It returns {@code true} in case of a successful parse, or {@code false} in case of a failure.
+   * <p>
+   * Subclasses don't necessarily have to override this method, since it is emulated using {@link #parseOn(Context)}.
+   */
+  public boolean parseOn(MutableContext context) {
+    return context.set(parseOn(new Context(context.getBuffer(), context.getPosition())));
+  }
+
   /**
    * Returns the parse result of the {@code input}.
    */
-  public Result parse(String input) {
-    return parseOn(new Context(input, 0));
+  public Result parse(CharSequence input) {
+    var session = MemoTable.session();
+    try {
+      return parseOn(new Context(input, 0));
+    } finally {
+      session.close();
+    }
+  }
+
+  /**
+   * Returns the parse result of the input in the mutable {@code context}, starting at its current position.
+   * <p>
+   * Only the returned result is allocated, all intermediate state is kept in the reusable {@code context}.
+   */
+  public Result parse(MutableContext context) {
+    var session = MemoTable.session();
+    try {
+      parseOn(context);
+    } finally {
+      session.close();
+    }
+    return context.toResult();
   }
 
   /**
    * Tests if the {@code input} can be successfully parsed.
    */
-  public boolean accept(String input) {
-    return fastParseOn(input, 0) >= 0;
+  public boolean accept(CharSequence input) {
+    var session = MemoTable.session();
+    try {
+      return fastParseOn(input, 0) >= 0;
+    } finally {
+      session.close();
+    }
   }
 
   /**
    * Returns a list of all successful overlapping parses of the {@code input}.
    */
   @SuppressWarnings("unchecked")
-  public <T> List<T> matches(String input) {
+  public <T> List<T> matches(CharSequence input) {
     var list = new ArrayList<Object>();
-    and().mapWithSideEffects(list::add).seq(any()).or(any()).star().fastParseOn(input, 0);
+    and().mapWithSideEffects(list::add).seq(any()).or(any()).star().accept(input);
     return (List<T>) list;
   }
 
@@ -89,9 +143,9 @@ public abstract class PetitParser {
    * Returns a list of all successful non-overlapping parses of the {@code input}.
    */
   @SuppressWarnings("unchecked")
-  public <T> List<T> matchesSkipping(String input) {
+  public <T> List<T> matchesSkipping(CharSequence input) {
     var list = new ArrayList<Object>();
-    mapWithSideEffects(list::add).or(any()).star().fastParseOn(input, 0);
+    mapWithSideEffects(list::add).or(any()).star().accept(input);
     return (List<T>) list;
   }
 
@@ -257,6 +311,13 @@ public abstract class PetitParser {
     return new ContinuationParser(this, handler);
   }
 
+  /**
+   * Returns a parser that is called with its current continuation, and with a continuation on primitive positions on the fast path.
+   */
+  public PetitParser callCC(ContinuationParser.ContinuationHandler handler, ContinuationParser.FastContinuationHandler fastHandler) {
+    return new ContinuationParser(this, handler, Objects.requireNonNull(fastHandler, "Undefined fast handler"));
+  }
+
   /**
    * Returns a parser (logical not-predicate) that succeeds whenever the receiver fails, but never consumes input.
    */
@@ -351,6 +412,29 @@ public abstract class PetitParser {
     return SettableParser.with(this);
   }
 
+  /**
+   * Returns a parser that memoizes the parse results of the receiver per input position (packrat parsing).
+   * The results are kept in the {@link MemoTable#DEFAULT} table.
+   */
+  public MemoParser memoize() {
+    return new MemoParser(this);
+  }
+
+  /**
+   * Returns a parser that memoizes the parse results of the receiver per input position in the shared {@code table}.
+   */
+  public MemoParser memoize(MemoTable table) {
+    return new MemoParser(this, table);
+  }
+
+  /**
+   * Returns a parser that memoizes the parse results of the receiver, and that grows them when the receiver is left-recursive through it.
+   * The results are kept in the {@link MemoTable#DEFAULT} table.
+   */
+  public LeftRecursiveParser leftRecursive() {
+    return new LeftRecursiveParser(this);
+  }
+
   /**
    * Returns a parser that evaluates a {@code function} as the production action on success of the receiver.
    * @param function production action without side-effects.
@@ -414,6 +498,45 @@ public abstract class PetitParser {
    */
   public abstract PetitParser copy();
 
+  /**
+   * Returns an immutable copy of the graph of the receiver, with all the {@link SettableParser}s resolved to the parsers they refer to.
+   * <p>
+   * The parsers of the frozen graph reject {@link #replace(PetitParser, PetitParser)} and {@link SettableParser#set(PetitParser)}
+   * with an {@link IllegalStateException}, and the returned {@link FrozenParser} publishes the graph safely to other threads.
+   * The receiver is left unchanged. Copies of frozen parsers, and thus the graphs transformed with {@link Mirror}, are not frozen.
+   */
+  public FrozenParser freeze() {
+    if (isFrozen()) {
+      return this instanceof FrozenParser root ? root : new FrozenParser(this);
+    }
+    var root = resolve(Mirror.of(this).transform(Function.identity()));
+    for (var parser : Mirror.of(root).stream().toList()) {
+      for (var child : new ArrayList<>(parser.getChildren())) {
+        var target = resolve(child);
+        if (target != child) {
+          parser.replace(child, target);
+        }
+      }
+    }
+    Mirror.of(root).forEach(parser -> parser.frozen = true);
+    return new FrozenParser(root);
+  }
+
+  private static PetitParser resolve(PetitParser parser) {
+    var seen = new HashSet<PetitParser>();
+    while (parser instanceof SettableParser settable && seen.add(settable)) {
+      parser = settable.get();
+    }
+    return parser;
+  }
+
+  /**
+   * Tests if the receiver is part of a frozen graph, see {@link #freeze()}.
+   */
+  public boolean isFrozen() {
+    return frozen;
+  }
+
   /**
    * Recursively tests for structural similarity of two parsers.
    * <p>
@@ -463,6 +586,38 @@ public abstract class PetitParser {
     return true;
   }
 
+  /**
+   * Returns a hash of the structure of the receiver, so that structurally identical graphs have the same hash.
+   * <p>
+   * The hash combines the classes, the properties and the number of children of the parsers up to a fixed depth,
+   * so that it terminates on recursive parsers and costs constant time for parsers of bounded arity.
+   * It is consistent with {@link #isEqualTo(PetitParser)} for acyclic parsers only: on a recursive graph the comparison
+   * accepts every parser it has already visited, and can thus consider parsers equal whose unfolded structures, and hashes, differ.
+   */
+  public int structuralHash() {
+    return structuralHash(STRUCTURAL_HASH_DEPTH);
+  }
+
+  private int structuralHash(int depth) {
+    var children = getChildren();
+    var hash = 31 * (31 * getClass().hashCode() + hashProperties()) + children.size();
+    if (depth > 0) {
+      for (var child : children) {
+        hash = 31 * hash + child.structuralHash(depth - 1);
+      }
+    }
+    return hash;
+  }
+
+  /**
+   * Returns a hash of the properties of the parser.
+   * <p>
+   * Override this method together with {@link #hasEqualProperties(PetitParser)}, parsers with equal properties must have equal hashes.
+   */
+  protected int hashProperties() {
+    return 0;
+  }
+
   /**
    * Returns a list of directly referring parsers.
    */
@@ -473,9 +628,12 @@ public abstract class PetitParser {
   /**
    * Replaces the referring parser {@code source} with {@code target}.
    * Does nothing if the parser does not exist.
+   * @throws IllegalStateException if the receiver is frozen.
    */
   public void replace(PetitParser source, PetitParser target) {
-    // no referring parsers
+    if (isFrozen()) {
+      throw new IllegalStateException("Frozen parser cannot be modified: " + this);
+    }
   }
 
   /**
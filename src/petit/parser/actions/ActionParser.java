@@ -3,6 +3,7 @@ package petit.parser.actions;
 import petit.parser.PetitParser;
 import petit.parser.combinators.DelegateParser;
 import petit.parser.context.Context;
+import petit.parser.context.MutableContext;
 import petit.parser.context.Result;
 
 import java.util.Objects;
@@ -36,11 +37,30 @@ public class ActionParser<T, R> extends DelegateParser {
   }
 
   @Override
-  public int fastParseOn(String buffer, int position) {
+  public boolean parseOn(MutableContext context) {
+    return delegate.parseOn(context) && context.success(function.apply(context.getValue()));
+  }
+
+  @Override
+  public int fastParseOn(CharSequence buffer, int position) {
     // If we know to have side-effects, we have to fall back to the slow mode.
     return hasSideEffects ? super.fastParseOn(buffer, position) : delegate.fastParseOn(buffer, position);
   }
 
+  /**
+   * Returns the function applied to the result of the delegate.
+   */
+  public Function<T, R> getFunction() {
+    return function;
+  }
+
+  /**
+   * Returns {@code true} if the function has side-effects, and is also applied when only recognizing input.
+   */
+  public boolean hasSideEffects() {
+    return hasSideEffects;
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   protected boolean hasEqualProperties(PetitParser other) {
@@ -49,6 +69,11 @@ public class ActionParser<T, R> extends DelegateParser {
         && hasSideEffects == ((ActionParser<T, R>) other).hasSideEffects;
   }
 
+  @Override
+  protected int hashProperties() {
+    return 31 * super.hashProperties() + Objects.hash(function, hasSideEffects);
+  }
+
   @Override
   public ActionParser<T, R> copy() {
     return new ActionParser<>(delegate, function, hasSideEffects);
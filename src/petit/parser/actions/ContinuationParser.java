@@ -10,6 +10,10 @@ import java.util.function.Function;
 
 /**
  * Continuation parser that when activated captures a continuation function and passes it together with the current context into the handler.
+ * <p>
+ * An optional {@link FastContinuationHandler} is called on the fast path of {@link #fastParseOn(CharSequence, int)} with primitive positions,
+ * so that wrapping a parser does not force its subtree to allocate contexts and results.
+ * Without it, the fast path calls the handler like {@link PetitParser#fastParseOn(CharSequence, int)}.
  */
 public class ContinuationParser extends DelegateParser {
 
@@ -18,11 +22,34 @@ public class ContinuationParser extends DelegateParser {
     Result apply(Function<Context, Result> continuation, Context context);
   }
 
+  /**
+   * A continuation on the fast path, returns the position after a successful parse or {@code -1}.
+   */
+  @FunctionalInterface
+  public interface FastContinuation {
+    int apply(CharSequence buffer, int position);
+  }
+
+  /**
+   * A handler of the fast path, returns the position after a successful parse or {@code -1}.
+   */
+  @FunctionalInterface
+  public interface FastContinuationHandler {
+    int apply(FastContinuation continuation, CharSequence buffer, int position);
+  }
+
   private final ContinuationHandler handler;
+  private final FastContinuationHandler fastHandler;
+  private final FastContinuation fastContinuation = (buffer, position) -> delegate.fastParseOn(buffer, position);
 
   public ContinuationParser(PetitParser delegate, ContinuationHandler handler) {
+    this(delegate, handler, null);
+  }
+
+  public ContinuationParser(PetitParser delegate, ContinuationHandler handler, FastContinuationHandler fastHandler) {
     super(delegate);
     this.handler = Objects.requireNonNull(handler, "Undefined handler");
+    this.fastHandler = fastHandler;
   }
 
   @Override
@@ -30,14 +57,30 @@ public class ContinuationParser extends DelegateParser {
     return handler.apply(super::parseOn, context);
   }
 
+  @Override
+  public int fastParseOn(CharSequence buffer, int position) {
+    if (fastHandler == null) {
+      var result = parseOn(new Context(buffer, position));
+      return result.isSuccess() ? result.getPosition() : -1;
+    }
+    return fastHandler.apply(fastContinuation, buffer, position);
+  }
+
   @Override
   protected boolean hasEqualProperties(PetitParser other) {
-    return super.hasEqualProperties(other) && Objects.equals(handler, ((ContinuationParser) other).handler);
+    return super.hasEqualProperties(other)
+        && Objects.equals(handler, ((ContinuationParser) other).handler)
+        && Objects.equals(fastHandler, ((ContinuationParser) other).fastHandler);
+  }
+
+  @Override
+  protected int hashProperties() {
+    return 31 * super.hashProperties() + Objects.hash(handler, fastHandler);
   }
 
   @Override
   public ContinuationParser copy() {
-    return new ContinuationParser(delegate, handler);
+    return new ContinuationParser(delegate, handler, fastHandler);
   }
 
 }
@@ -3,6 +3,7 @@ package petit.parser.actions;
 import petit.parser.PetitParser;
 import petit.parser.combinators.DelegateParser;
 import petit.parser.context.Context;
+import petit.parser.context.MutableContext;
 import petit.parser.context.Result;
 
 /**
@@ -26,7 +27,7 @@ public class FlattenParser extends DelegateParser {
     if (message == null) {
       var result = delegate.parseOn(context);
       if (result.isSuccess()) {
-        var flattened = context.getBuffer().substring(context.getPosition(), result.getPosition());
+        var flattened = context.getBuffer().subSequence(context.getPosition(), result.getPosition()).toString();
         return result.success(flattened);
       } else {
         return result;
@@ -37,11 +38,31 @@ public class FlattenParser extends DelegateParser {
       if (position < 0) {
         return context.failure(message);
       }
-      var output = context.getBuffer().substring(context.getPosition(), position);
+      var output = context.getBuffer().subSequence(context.getPosition(), position).toString();
       return context.success(output, position);
     }
   }
 
+  @Override
+  public boolean parseOn(MutableContext context) {
+    var buffer = context.getBuffer();
+    var start = context.getPosition();
+    if (message == null) {
+      return delegate.parseOn(context) && context.success(buffer.subSequence(start, context.getPosition()).toString());
+    } else {
+      // If we have a message we can switch to fast mode.
+      var position = delegate.fastParseOn(buffer, start);
+      return position < 0 ? context.failure(message) : context.success(buffer.subSequence(start, position).toString(), position);
+    }
+  }
+
+  /**
+   * Returns the error message reported instead of the failure of the delegate, or {@code null}.
+   */
+  public String getMessage() {
+    return message;
+  }
+
   @Override
   public FlattenParser copy() {
     return new FlattenParser(delegate, message);
@@ -3,6 +3,7 @@ package petit.parser.actions;
 import petit.parser.PetitParser;
 import petit.parser.combinators.DelegateParser;
 import petit.parser.context.Context;
+import petit.parser.context.MutableContext;
 import petit.parser.context.Result;
 import petit.parser.context.Token;
 
@@ -27,7 +28,13 @@ public class TokenParser extends DelegateParser {
   }
 
   @Override
-  public int fastParseOn(String buffer, int position) {
+  public boolean parseOn(MutableContext context) {
+    var start = context.getPosition();
+    return delegate.parseOn(context) && context.success(new Token(context.getBuffer(), start, context.getPosition(), context.getValue()));
+  }
+
+  @Override
+  public int fastParseOn(CharSequence buffer, int position) {
     return delegate.fastParseOn(buffer, position);
   }
 
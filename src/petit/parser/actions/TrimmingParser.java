@@ -3,6 +3,7 @@ package petit.parser.actions;
 import petit.parser.PetitParser;
 import petit.parser.combinators.DelegateParser;
 import petit.parser.context.Context;
+import petit.parser.context.MutableContext;
 import petit.parser.context.Result;
 
 import java.util.Arrays;
@@ -45,12 +46,23 @@ public class TrimmingParser extends DelegateParser {
   }
 
   @Override
-  public int fastParseOn(String buffer, int position) {
+  public boolean parseOn(MutableContext context) {
+    var buffer = context.getBuffer();
+    context.setPosition(consume(left, buffer, context.getPosition()));
+    if (!delegate.parseOn(context)) {
+      return false;
+    }
+    context.setPosition(consume(right, buffer, context.getPosition()));
+    return true;
+  }
+
+  @Override
+  public int fastParseOn(CharSequence buffer, int position) {
     var result = delegate.fastParseOn(buffer, consume(left, buffer, position));
     return result < 0 ? result : consume(right, buffer, result);
   }
 
-  private int consume(PetitParser parser, String buffer, int position) {
+  private int consume(PetitParser parser, CharSequence buffer, int position) {
     for (;;) {
       var result = parser.fastParseOn(buffer, position);
       if (result < 0) {
@@ -2,6 +2,7 @@ package petit.parser.combinators;
 
 import petit.parser.PetitParser;
 import petit.parser.context.Context;
+import petit.parser.context.MutableContext;
 import petit.parser.context.Result;
 
 /**
@@ -20,7 +21,17 @@ public class AndParser extends DelegateParser {
   }
 
   @Override
-  public int fastParseOn(String buffer, int position) {
+  public boolean parseOn(MutableContext context) {
+    var position = context.getPosition();
+    if (delegate.parseOn(context)) {
+      context.setPosition(position);
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public int fastParseOn(CharSequence buffer, int position) {
     var result = delegate.fastParseOn(buffer, position);
     return result < 0 ? -1 : position;
   }
@@ -3,6 +3,7 @@ package petit.parser.combinators;
 import petit.parser.PetitParser;
 import petit.parser.context.Context;
 import petit.parser.context.Failure;
+import petit.parser.context.MutableContext;
 import petit.parser.context.Result;
 import petit.parser.utils.FailureJoiner;
 
@@ -42,7 +43,27 @@ public class ChoiceParser extends ListParser {
   }
 
   @Override
-  public int fastParseOn(String buffer, int position) {
+  public boolean parseOn(MutableContext context) {
+    var position = context.getPosition();
+    var joining = !(failureJoiner instanceof FailureJoiner.SelectLast);
+    Failure failure = null;
+    for (var parser : parsers) {
+      context.setPosition(position);
+      if (parser.parseOn(context)) {
+        return true;
+      }
+      if (joining) {
+        failure = failure == null ? context.toFailure() : failureJoiner.apply(failure, context.toFailure());
+      }
+    }
+    if (failure != null) {
+      context.set(failure);
+    }
+    return false;
+  }
+
+  @Override
+  public int fastParseOn(CharSequence buffer, int position) {
     var result = -1;
     for (var parser : parsers) {
       result = parser.fastParseOn(buffer, position);
@@ -53,6 +74,13 @@ public class ChoiceParser extends ListParser {
     return result;
   }
 
+  /**
+   * Returns the strategy that combines the failures of the alternatives.
+   */
+  public FailureJoiner getFailureJoiner() {
+    return failureJoiner;
+  }
+
   @Override
   public ChoiceParser or(FailureJoiner failureJoiner, PetitParser... others) {
     var array = Arrays.copyOf(parsers, parsers.length + others.length);
@@ -0,0 +1,189 @@
+package petit.parser.combinators;
+
+import petit.parser.PetitParser;
+import petit.parser.context.Context;
+import petit.parser.context.Failure;
+import petit.parser.context.MutableContext;
+import petit.parser.context.Result;
+import petit.parser.utils.FailureJoiner;
+import petit.parser.utils.FirstSet;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A parser that uses the first parser that succeeds, and only tries the alternatives that can start with the next character.
+ * <p>
+ * The candidate alternatives are looked up from the {@link FirstSet} of each alternative, through a table for ASCII characters.
+ * At the end of the input only the nullable alternatives are tried.
+ * The ordered choice semantics are preserved, as the alternatives that are skipped cannot succeed.
+ * If all the candidates fail, the skipped alternatives that contribute to the failure are parsed, so that the same failure is reported.
+ * The failures of the candidates are kept and joined in order with those of the skipped alternatives, so no alternative is parsed twice.
+ * <p>
+ * Replacing an alternative keeps the dispatch tables, so alternatives can only be replaced with equivalent parsers.
+ */
+public class DispatchChoiceParser extends ChoiceParser {
+
+  /**
+   * The maximum number of alternatives.
+   */
+  public static final int MAX_ALTERNATIVES = Long.SIZE;
+
+  private static final int TABLE_SIZE = 128;
+
+  private final FirstSet[] firsts;
+
+  /**
+   * The bit masks of the candidate alternatives for each ASCII character, and at the end of the input.
+   */
+  private final long[] table;
+  private final long nullable;
+
+  public DispatchChoiceParser(FailureJoiner failureJoiner, PetitParser[] parsers, FirstSet[] firsts) {
+    super(failureJoiner, parsers);
+    if (parsers.length > MAX_ALTERNATIVES) {
+      throw new IllegalArgumentException("Too many alternatives: " + parsers.length);
+    }
+    if (firsts.length != parsers.length) {
+      throw new IllegalArgumentException("Expected " + parsers.length + " first sets, but got " + firsts.length);
+    }
+    this.firsts = firsts.clone();
+    this.table = new long[TABLE_SIZE];
+    var nullable = 0L;
+    for (var i = 0; i < firsts.length; i++) {
+      var first = Objects.requireNonNull(firsts[i], "Undefined first set");
+      if (first.isNullable()) {
+        nullable |= 1L << i;
+      }
+      for (var c = 0; c < TABLE_SIZE; c++) {
+        if (first.contains((char) c)) {
+          table[c] |= 1L << i;
+        }
+      }
+    }
+    this.nullable = nullable;
+    for (var c = 0; c < TABLE_SIZE; c++) {
+      table[c] |= nullable;
+    }
+  }
+
+  private DispatchChoiceParser(FailureJoiner failureJoiner, PetitParser[] parsers, FirstSet[] firsts, long[] table, long nullable) {
+    super(failureJoiner, parsers);
+    this.firsts = firsts;
+    this.table = table;
+    this.nullable = nullable;
+  }
+
+  /**
+   * Returns the bit mask of the alternatives that can succeed at {@code position}.
+   */
+  private long candidates(CharSequence buffer, int position) {
+    if (position >= buffer.length()) {
+      return nullable;
+    }
+    var character = buffer.charAt(position);
+    if (character < TABLE_SIZE) {
+      return table[character];
+    }
+    var mask = nullable;
+    for (var i = 0; i < firsts.length; i++) {
+      if (firsts[i].contains(character)) {
+        mask |= 1L << i;
+      }
+    }
+    return mask;
+  }
+
+  private boolean isSelectingLast() {
+    return failureJoiner instanceof FailureJoiner.SelectLast;
+  }
+
+  @Override
+  public Result parseOn(Context context) {
+    var mask = candidates(context.getBuffer(), context.getPosition());
+    var failures = isSelectingLast() ? null : new Failure[parsers.length];
+    Result result = null;
+    for (var remaining = mask; remaining != 0; remaining &= remaining - 1) {
+      var index = Long.numberOfTrailingZeros(remaining);
+      result = parsers[index].parseOn(context);
+      if (result.isSuccess()) {
+        return result;
+      }
+      if (failures != null) {
+        failures[index] = (Failure) result;
+      }
+    }
+    // All the alternatives fail, report the failure of the plain choice:
+    if (failures == null) {
+      var last = parsers.length - 1;
+      return (mask & 1L << last) != 0 ? result : parsers[last].parseOn(context);
+    }
+    Failure failure = null;
+    for (var i = 0; i < parsers.length; i++) {
+      if (failures[i] == null) {
+        result = parsers[i].parseOn(context);
+        if (result.isSuccess()) {
+          return result;
+        }
+        failures[i] = (Failure) result;
+      }
+      failure = failure == null ? failures[i] : failureJoiner.apply(failure, failures[i]);
+    }
+    return failure;
+  }
+
+  @Override
+  public boolean parseOn(MutableContext context) {
+    var position = context.getPosition();
+    var mask = candidates(context.getBuffer(), position);
+    var failures = isSelectingLast() ? null : new Failure[parsers.length];
+    for (var remaining = mask; remaining != 0; remaining &= remaining - 1) {
+      var index = Long.numberOfTrailingZeros(remaining);
+      context.setPosition(position);
+      if (parsers[index].parseOn(context)) {
+        return true;
+      }
+      if (failures != null) {
+        failures[index] = context.toFailure();
+      }
+    }
+    // All the alternatives fail, report the failure of the plain choice:
+    if (failures == null) {
+      var last = parsers.length - 1;
+      if ((mask & 1L << last) != 0) {
+        return false;
+      }
+      context.setPosition(position);
+      return parsers[last].parseOn(context);
+    }
+    Failure failure = null;
+    for (var i = 0; i < parsers.length; i++) {
+      if (failures[i] == null) {
+        context.setPosition(position);
+        if (parsers[i].parseOn(context)) {
+          return true;
+        }
+        failures[i] = context.toFailure();
+      }
+      failure = failure == null ? failures[i] : failureJoiner.apply(failure, failures[i]);
+    }
+    return context.set(failure);
+  }
+
+  @Override
+  public int fastParseOn(CharSequence buffer, int position) {
+    for (var remaining = candidates(buffer, position); remaining != 0; remaining &= remaining - 1) {
+      var result = parsers[Long.numberOfTrailingZeros(remaining)].fastParseOn(buffer, position);
+      if (result >= 0) {
+        return result;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public DispatchChoiceParser copy() {
+    return new DispatchChoiceParser(failureJoiner, Arrays.copyOf(parsers, parsers.length), firsts, table, nullable);
+  }
+
+}
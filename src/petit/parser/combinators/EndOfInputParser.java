@@ -2,6 +2,7 @@ package petit.parser.combinators;
 
 import petit.parser.PetitParser;
 import petit.parser.context.Context;
+import petit.parser.context.MutableContext;
 import petit.parser.context.Result;
 
 import java.util.Objects;
@@ -23,7 +24,12 @@ public class EndOfInputParser extends PetitParser {
   }
 
   @Override
-  public int fastParseOn(String buffer, int position) {
+  public boolean parseOn(MutableContext context) {
+    return context.getPosition() < context.getBuffer().length() ? context.failure(message) : context.success(null);
+  }
+
+  @Override
+  public int fastParseOn(CharSequence buffer, int position) {
     return position < buffer.length() ? -1 : position;
   }
 
@@ -32,6 +38,11 @@ public class EndOfInputParser extends PetitParser {
     return super.hasEqualProperties(other) && Objects.equals(message, ((EndOfInputParser) other).message);
   }
 
+  @Override
+  protected int hashProperties() {
+    return 31 * super.hashProperties() + Objects.hashCode(message);
+  }
+
   @Override
   public EndOfInputParser copy() {
     return new EndOfInputParser(message);
@@ -0,0 +1,63 @@
+package petit.parser.combinators;
+
+import petit.parser.PetitParser;
+import petit.parser.context.Context;
+import petit.parser.context.MutableContext;
+import petit.parser.context.Result;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The root of a frozen parser graph, see {@link PetitParser#freeze()}.
+ * <p>
+ * The graph is referred to through a final field, so that a frozen parser is safely published to other threads,
+ * even if the reference to it is shared without synchronization.
+ * A copy of a frozen parser is a plain, modifiable {@link DelegateParser} of the same graph.
+ */
+public final class FrozenParser extends PetitParser {
+
+  private final PetitParser delegate;
+
+  /**
+   * Constructs the root of the already frozen graph of {@code delegate}.
+   */
+  public FrozenParser(PetitParser delegate) {
+    this.delegate = Objects.requireNonNull(delegate, "Undefined delegate parser");
+    if (!delegate.isFrozen()) {
+      throw new IllegalArgumentException("Parser is not frozen: " + delegate);
+    }
+  }
+
+  @Override
+  public Result parseOn(Context context) {
+    return delegate.parseOn(context);
+  }
+
+  @Override
+  public boolean parseOn(MutableContext context) {
+    return delegate.parseOn(context);
+  }
+
+  @Override
+  public int fastParseOn(CharSequence buffer, int position) {
+    return delegate.fastParseOn(buffer, position);
+  }
+
+  @Override
+  public boolean isFrozen() {
+    return true;
+  }
+
+  @Override
+  public List<PetitParser> getChildren() {
+    return Collections.singletonList(delegate);
+  }
+
+  @Override
+  public DelegateParser copy() {
+    return new DelegateParser(delegate);
+  }
+
+}
@@ -0,0 +1,103 @@
+package petit.parser.combinators;
+
+import petit.parser.PetitParser;
+import petit.parser.context.Context;
+import petit.parser.context.MutableContext;
+import petit.parser.context.Result;
+
+import java.util.List;
+
+/**
+ * A memoizing parser that supports left recursion through it, by growing a seed (Warth et al.).
+ * <p>
+ * When the parser is activated at a position, a failure is memoized as the seed before its delegate is parsed,
+ * so that a left-recursive activation at the same position fails and the delegate falls back to its other alternatives.
+ * As long as the delegate then consumes more input, its result is memoized as the new seed and the delegate is parsed again.
+ * The longest result is returned.
+ * <p>
+ * The results memoized at the same position while the seed grows may depend on the seed, so they are discarded before the next iteration.
+ * Results at other positions cannot depend on the seed and are kept.
+ * <p>
+ * The seed is always grown with {@link #parseOn(Context)}, so that the left-recursive activations see it whatever mode they are parsed in.
+ */
+public class LeftRecursiveParser extends MemoParser {
+
+  private static final String SEED_MESSAGE = "left recursion";
+
+  public LeftRecursiveParser(PetitParser delegate) {
+    this(delegate, MemoTable.DEFAULT);
+  }
+
+  public LeftRecursiveParser(PetitParser delegate, MemoTable table) {
+    super(delegate, table);
+  }
+
+  @Override
+  public Result parseOn(Context context) {
+    var entries = table.entries();
+    var key = new MemoTable.Key(this, context.getBuffer(), context.getPosition(), false);
+    var result = (Result) entries.get(key);
+    if (result != null) {
+      return result;
+    }
+    entries.enter();
+    try {
+      result = context.failure(SEED_MESSAGE);
+      entries.put(key, result);
+      for (var first = true; ; first = false) {
+        Result next;
+        List<MemoTable.Key> logged;
+        var outer = entries.startLog();
+        try {
+          next = delegate.parseOn(context);
+        } finally {
+          logged = entries.stopLog(outer);
+        }
+        var grown = next.isSuccess() && (first || next.getPosition() > result.getPosition());
+        settle(entries, key, logged, outer, grown);
+        if (first || grown) {
+          result = next;
+          entries.put(key, result);
+        }
+        if (!grown) {
+          return result;
+        }
+      }
+    } finally {
+      entries.exit();
+    }
+  }
+
+  @Override
+  public boolean parseOn(MutableContext context) {
+    return context.set(parseOn(new Context(context.getBuffer(), context.getPosition())));
+  }
+
+  @Override
+  public int fastParseOn(CharSequence buffer, int position) {
+    var result = parseOn(new Context(buffer, position));
+    return result.isSuccess() ? result.getPosition() : -1;
+  }
+
+  /**
+   * Discards the {@code logged} entries at the position of {@code key} if the seed has {@code grown},
+   * otherwise they are consistent with the final result and are handed over to the {@code outer} log.
+   */
+  private static void settle(MemoTable.Entries entries, MemoTable.Key key, List<MemoTable.Key> logged, List<MemoTable.Key> outer, boolean grown) {
+    for (var each : logged) {
+      if (each.position() == key.position() && each.buffer() == key.buffer() && !each.equals(key)) {
+        if (grown) {
+          entries.remove(each);
+        } else if (outer != null) {
+          outer.add(each);
+        }
+      }
+    }
+  }
+
+  @Override
+  public LeftRecursiveParser copy() {
+    return new LeftRecursiveParser(delegate, table);
+  }
+
+}
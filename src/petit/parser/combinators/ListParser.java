@@ -3,6 +3,7 @@ package petit.parser.combinators;
 import petit.parser.PetitParser;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
@@ -29,7 +30,7 @@ public abstract class ListParser extends PetitParser {
 
   @Override
   public List<PetitParser> getChildren() {
-    return Arrays.asList(parsers);
+    return Collections.unmodifiableList(Arrays.asList(parsers));
   }
 
 }
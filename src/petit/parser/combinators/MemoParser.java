@@ -0,0 +1,93 @@
+package petit.parser.combinators;
+
+import petit.parser.PetitParser;
+import petit.parser.context.Context;
+import petit.parser.context.MutableContext;
+import petit.parser.context.Result;
+
+import java.util.Objects;
+
+/**
+ * A parser that memoizes the results of its delegate per input position (packrat parsing).
+ * <p>
+ * Both successful and failing results are memoized in a {@link MemoTable}, so the delegate is activated at most once per position during a top-level parse, see {@link MemoTable}.
+ * Delegates with side-effects are not re-evaluated on a memoized position.
+ */
+public class MemoParser extends DelegateParser {
+
+  protected final MemoTable table;
+
+  public MemoParser(PetitParser delegate) {
+    this(delegate, MemoTable.DEFAULT);
+  }
+
+  public MemoParser(PetitParser delegate, MemoTable table) {
+    super(delegate);
+    this.table = Objects.requireNonNull(table, "Undefined memo table");
+  }
+
+  @Override
+  public Result parseOn(Context context) {
+    var entries = table.entries();
+    var key = new MemoTable.Key(this, context.getBuffer(), context.getPosition(), false);
+    var result = (Result) entries.get(key);
+    if (result == null) {
+      entries.enter();
+      try {
+        result = delegate.parseOn(context);
+        entries.put(key, result);
+      } finally {
+        entries.exit();
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public boolean parseOn(MutableContext context) {
+    var entries = table.entries();
+    var key = new MemoTable.Key(this, context.getBuffer(), context.getPosition(), false);
+    var result = (Result) entries.get(key);
+    if (result != null) {
+      return context.set(result);
+    }
+    entries.enter();
+    try {
+      delegate.parseOn(context);
+      entries.put(key, context.toResult());
+    } finally {
+      entries.exit();
+    }
+    return context.isSuccess();
+  }
+
+  @Override
+  public int fastParseOn(CharSequence buffer, int position) {
+    var entries = table.entries();
+    var key = new MemoTable.Key(this, buffer, position, true);
+    var result = (Integer) entries.get(key);
+    if (result == null) {
+      entries.enter();
+      try {
+        result = delegate.fastParseOn(buffer, position);
+        entries.put(key, result);
+      } finally {
+        entries.exit();
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the table holding the memoized results.
+   */
+  public MemoTable getTable() {
+    return table;
+  }
+
+  @Override
+  public MemoParser copy() {
+    return new MemoParser(delegate, table);
+  }
+
+}
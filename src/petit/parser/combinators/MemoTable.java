@@ -0,0 +1,204 @@
+package petit.parser.combinators;
+
+import petit.parser.PetitParser;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded table of memoized parse results, keyed on the memoizing parser and the parse position.
+ * <p>
+ * A table can be shared by any number of {@link MemoParser} instances, typically all the memoizing parsers of a grammar.
+ * Entries are kept for the whole top-level parse, that is while a {@link Session} is open, see {@link PetitParser#parse(CharSequence)} and {@link PetitParser#accept(CharSequence)}.
+ * Outside of a session they are only kept while the outermost memoizing parser is active.
+ * Entries are keyed on the identity of the input buffer as well, so that a nested parse of another buffer, for example in an action, does not interfere with them.
+ * Each thread uses its own set of entries, and at most {@code capacity} entries are retained per thread (least recently used entries are evicted first).
+ */
+public class MemoTable {
+
+  /**
+   * The default maximum number of entries per thread.
+   */
+  public static final int DEFAULT_CAPACITY = 1 << 16;
+
+  /**
+   * The table shared by all memoizing parsers that do not specify their own.
+   */
+  public static final MemoTable DEFAULT = new MemoTable();
+
+  private static final ThreadLocal<Session> SESSIONS = ThreadLocal.withInitial(Session::new);
+
+  /**
+   * Opens a session on the current thread, in which the memoized results of all tables are kept until it is closed.
+   * Sessions can be nested, the results are discarded when the outermost one is closed.
+   * <p>
+   * Sessions are opened by the entry points of {@link PetitParser}, only code calling {@link PetitParser#parseOn(petit.parser.context.Context)} directly needs to open its own:
+   * <pre>{@code
+   * try (var session = MemoTable.session()) {
+   *   result = parser.parseOn(context);
+   * }
+   * }</pre>
+   */
+  public static Session session() {
+    var session = SESSIONS.get();
+    session.depth++;
+    return session;
+  }
+
+  private final int capacity;
+  private final ThreadLocal<Entries> entries;
+
+  /**
+   * Constructs a memo table with the {@link #DEFAULT_CAPACITY}.
+   */
+  public MemoTable() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Constructs a memo table that retains at most {@code capacity} entries.
+   */
+  public MemoTable(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Invalid capacity: " + capacity);
+    }
+    this.capacity = capacity;
+    this.entries = ThreadLocal.withInitial(() -> new Entries(capacity));
+  }
+
+  /**
+   * Returns the maximum number of entries per thread.
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Returns the entries of the current thread.
+   */
+  Entries entries() {
+    return entries.get();
+  }
+
+  /**
+   * Key of a memoized result: the memoizing parser, the input buffer, the parse position, and the parse mode.
+   * Parsers and buffers are compared by identity, buffers are not hashed as their hash may depend on their contents.
+   */
+  record Key(PetitParser parser, CharSequence buffer, int position, boolean fast) {
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Key key && parser == key.parser && buffer == key.buffer && position == key.position && fast == key.fast;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * System.identityHashCode(parser) + position) + (fast ? 1 : 0);
+    }
+  }
+
+  /**
+   * A top-level parse of the current thread, see {@link #session()}.
+   */
+  public static final class Session implements AutoCloseable {
+
+    private final List<Entries> used = new ArrayList<>();
+    private int depth;
+
+    private Session() {}
+
+    /**
+     * Closes the session, discards the memoized results if it is the outermost one.
+     */
+    @Override
+    public void close() {
+      if (--depth == 0) {
+        used.forEach(Entries::discard);
+        used.clear();
+      }
+    }
+  }
+
+  /**
+   * The memoized results of a single thread.
+   */
+  static class Entries extends LinkedHashMap<Key, Object> {
+
+    private final int capacity;
+    private final transient Session session = SESSIONS.get();
+    private boolean used;
+    private int depth;
+    private transient List<Key> log;
+
+    private Entries(int capacity) {
+      super(16, 0.75f, true);
+      this.capacity = capacity;
+    }
+
+    /**
+     * Marks the activation of a memoizing parser.
+     */
+    void enter() {
+      depth++;
+    }
+
+    /**
+     * Marks the return of a memoizing parser. When the outermost one returns, the entries are discarded,
+     * or kept until the current {@link Session} is closed.
+     */
+    void exit() {
+      if (--depth == 0) {
+        if (session.depth == 0) {
+          discard();
+        } else if (!used) {
+          used = true;
+          session.used.add(this);
+        }
+      }
+    }
+
+    /**
+     * Discards all entries.
+     */
+    private void discard() {
+      clear();
+      used = false;
+    }
+
+    /**
+     * Starts logging the keys of the entries that are put, and returns the log that was active before, or {@code null}.
+     */
+    List<Key> startLog() {
+      var previous = log;
+      log = new ArrayList<>();
+      return previous;
+    }
+
+    /**
+     * Stops logging, restores the {@code previous} log, and returns the keys logged since {@link #startLog()}.
+     */
+    List<Key> stopLog(List<Key> previous) {
+      var current = log;
+      log = previous;
+      return current;
+    }
+
+    @Override
+    public Object put(Key key, Object value) {
+      if (log != null) {
+        log.add(key);
+      }
+      return super.put(key, value);
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+      return size() > capacity;
+    }
+
+    private static final long serialVersionUID = 1L;
+  }
+
+}
@@ -2,6 +2,7 @@ package petit.parser.combinators;
 
 import petit.parser.PetitParser;
 import petit.parser.context.Context;
+import petit.parser.context.MutableContext;
 import petit.parser.context.Result;
 
 import java.util.Objects;
@@ -25,16 +26,34 @@ public class NotParser extends DelegateParser {
   }
 
   @Override
-  public int fastParseOn(String buffer, int position) {
+  public boolean parseOn(MutableContext context) {
+    var position = context.getPosition();
+    return delegate.parseOn(context) ? context.failure(message, position) : context.success(null, position);
+  }
+
+  @Override
+  public int fastParseOn(CharSequence buffer, int position) {
     var result = delegate.fastParseOn(buffer, position);
     return result < 0 ? position : -1;
   }
 
+  /**
+   * Returns the error message reported when the delegate succeeds.
+   */
+  public String getMessage() {
+    return message;
+  }
+
   @Override
   protected boolean hasEqualProperties(PetitParser other) {
     return super.hasEqualProperties(other) && Objects.equals(message, ((NotParser) other).message);
   }
 
+  @Override
+  protected int hashProperties() {
+    return 31 * super.hashProperties() + Objects.hashCode(message);
+  }
+
   @Override
   public NotParser copy() {
     return new NotParser(delegate, message);
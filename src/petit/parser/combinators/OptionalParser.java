@@ -2,6 +2,7 @@ package petit.parser.combinators;
 
 import petit.parser.PetitParser;
 import petit.parser.context.Context;
+import petit.parser.context.MutableContext;
 import petit.parser.context.Result;
 
 import java.util.Objects;
@@ -25,16 +26,34 @@ public class OptionalParser extends DelegateParser {
   }
 
   @Override
-  public int fastParseOn(String buffer, int position) {
+  public boolean parseOn(MutableContext context) {
+    var position = context.getPosition();
+    return delegate.parseOn(context) || context.success(otherwise, position);
+  }
+
+  @Override
+  public int fastParseOn(CharSequence buffer, int position) {
     var result = delegate.fastParseOn(buffer, position);
     return result < 0 ? position : result;
   }
 
+  /**
+   * Returns the value used if the delegate fails.
+   */
+  public Object getOtherwise() {
+    return otherwise;
+  }
+
   @Override
   protected boolean hasEqualProperties(PetitParser other) {
     return super.hasEqualProperties(other) && Objects.equals(otherwise, ((OptionalParser) other).otherwise);
   }
 
+  @Override
+  protected int hashProperties() {
+    return 31 * super.hashProperties() + Objects.hashCode(otherwise);
+  }
+
   @Override
   public OptionalParser copy() {
     return new OptionalParser(delegate, otherwise);
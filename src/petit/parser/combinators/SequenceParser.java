@@ -2,6 +2,7 @@ package petit.parser.combinators;
 
 import petit.parser.PetitParser;
 import petit.parser.context.Context;
+import petit.parser.context.MutableContext;
 import petit.parser.context.Result;
 
 import java.util.ArrayList;
@@ -39,7 +40,20 @@ public class SequenceParser extends ListParser {
   }
 
   @Override
-  public int fastParseOn(String buffer, int position) {
+  public boolean parseOn(MutableContext context) {
+    var mark = context.mark();
+    for (var parser : parsers) {
+      if (!parser.parseOn(context)) {
+        context.release(mark);
+        return false;
+      }
+      context.push();
+    }
+    return context.success(context.pop(mark));
+  }
+
+  @Override
+  public int fastParseOn(CharSequence buffer, int position) {
     for (var parser : parsers) {
       position = parser.fastParseOn(buffer, position);
       if (position < 0) {
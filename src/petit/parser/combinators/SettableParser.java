@@ -1,6 +1,7 @@
 package petit.parser.combinators;
 
 import petit.parser.PetitParser;
+import petit.parser.context.MutableContext;
 import petit.parser.primitive.FailureParser;
 
 /**
@@ -34,7 +35,12 @@ public class SettableParser extends DelegateParser {
   }
 
   @Override
-  public int fastParseOn(String buffer, int position) {
+  public boolean parseOn(MutableContext context) {
+    return delegate.parseOn(context);
+  }
+
+  @Override
+  public int fastParseOn(CharSequence buffer, int position) {
     return delegate.fastParseOn(buffer, position);
   }
 
@@ -47,8 +53,12 @@ public class SettableParser extends DelegateParser {
 
   /**
    * Replace the current referred parser with a new {@code delegate}.
+   * @throws IllegalStateException if the receiver is frozen.
    */
   public void set(PetitParser delegate) {
+    if (isFrozen()) {
+      throw new IllegalStateException("Frozen parser cannot be modified: " + this);
+    }
     this.delegate = delegate;
   }
 
@@ -1,5 +1,7 @@
 package petit.parser.context;
 
+import java.util.function.Supplier;
+
 /**
  * An immutable parse context.
  */
@@ -8,7 +10,7 @@ public class Context {
   /**
    * The input buffer.
    */
-  protected final String buffer;
+  protected final CharSequence buffer;
 
   /**
    * The current position.
@@ -21,7 +23,7 @@ public class Context {
    * @param buffer   the buffer this context is using
    * @param position the position this context is pointing at
    */
-  public Context(String buffer, int position) {
+  public Context(CharSequence buffer, int position) {
     this.buffer = buffer;
     this.position = position;
   }
@@ -30,7 +32,7 @@ public class Context {
   /**
    * Returns the input buffer.
    */
-  public String getBuffer() {
+  public CharSequence getBuffer() {
     return buffer;
   }
 
@@ -70,7 +72,7 @@ public class Context {
   }
 
   /**
-   * Returns a successful parse result.
+   * Returns a parse failure.
    *
    * @param message  the error message of the parse result
    * @param position the position of the parse result
@@ -79,6 +81,25 @@ public class Context {
     return new Failure(buffer, position, message);
   }
 
+  /**
+   * Returns a parse failure at the current position, with an error message that is only rendered when requested.
+   *
+   * @param message the supplier of the error message of the parse result
+   */
+  public Failure failure(Supplier<String> message) {
+    return failure(message, position);
+  }
+
+  /**
+   * Returns a parse failure, with an error message that is only rendered when requested.
+   *
+   * @param message  the supplier of the error message of the parse result
+   * @param position the position of the parse result
+   */
+  public Failure failure(Supplier<String> message, int position) {
+    return new Failure(buffer, position, message);
+  }
+
   @Override
   public String toString() {
     var tuple = Token.lineAndColumnOf(buffer, position);
@@ -1,19 +1,34 @@
 package petit.parser.context;
 
+import java.util.Objects;
+import java.util.function.Supplier;
+
 /**
  * An immutable parse failure.
+ * <p>
+ * The error message can be provided lazily, it is only rendered when first requested.
  */
 public class Failure extends Result {
 
-  private final String message;
+  private final Supplier<String> expected;
+  private String message;
 
-  public Failure(String buffer, int position, String message) {
+  public Failure(CharSequence buffer, int position, String message) {
     super(buffer, position);
+    this.expected = null;
     this.message = message;
   }
 
+  public Failure(CharSequence buffer, int position, Supplier<String> message) {
+    super(buffer, position);
+    this.expected = Objects.requireNonNull(message, "Undefined message");
+  }
+
   @Override
   public String getMessage() {
+    if (message == null && expected != null) {
+      message = expected.get();
+    }
     return message;
   }
 
@@ -29,7 +44,7 @@ public class Failure extends Result {
 
   @Override
   public String toString() {
-    return super.toString() + ": " + message;
+    return super.toString() + ": " + getMessage();
   }
 
 }
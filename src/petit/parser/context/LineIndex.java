@@ -0,0 +1,136 @@
+package petit.parser.context;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An index of the line starts in a buffer, to convert positions to line and column numbers.
+ * <p>
+ * Newlines are detected platform independently, see {@link Token#NEWLINE_PARSER}.
+ * The index of a buffer is built once on first use, and shared by all the tokens and contexts of that buffer.
+ * Only the indexes of immutable buffers, strings and {@link MappedInput}, are cached: they are identified by identity, not by their contents,
+ * and are discarded when the buffers are garbage collected. The index of any other buffer is built anew on every lookup, as its contents may change.
+ */
+public class LineIndex {
+
+  private static final Map<Key, LineIndex> INDEXES = new HashMap<>();
+  private static final ReferenceQueue<CharSequence> COLLECTED = new ReferenceQueue<>();
+
+  /**
+   * Returns the line index of a {@code buffer}.
+   * <p>
+   * The index is built outside of the lock guarding the cache, so that concurrent threads are not blocked on large buffers.
+   */
+  public static LineIndex of(CharSequence buffer) {
+    if (!(buffer instanceof String || buffer instanceof MappedInput)) {
+      return new LineIndex(buffer);
+    }
+    var key = new Key(buffer);
+    LineIndex index;
+    synchronized (INDEXES) {
+      for (var collected = COLLECTED.poll(); collected != null; collected = COLLECTED.poll()) {
+        INDEXES.remove(collected);
+      }
+      index = INDEXES.get(key);
+    }
+    if (index == null) {
+      index = new LineIndex(buffer);
+      synchronized (INDEXES) {
+        var previous = INDEXES.putIfAbsent(key, index);
+        if (previous != null) {
+          index = previous;
+        }
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Weak reference to a buffer that compares by identity.
+   */
+  private static final class Key extends WeakReference<CharSequence> {
+
+    private final int hash;
+
+    private Key(CharSequence buffer) {
+      super(buffer, COLLECTED);
+      this.hash = System.identityHashCode(buffer);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (other instanceof Key key) {
+        var buffer = get();
+        return buffer != null && buffer == key.get();
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  /**
+   * The sorted positions following each newline in the buffer.
+   */
+  private final int[] starts;
+
+  private LineIndex(CharSequence buffer) {
+    var starts = new int[16];
+    var count = 0;
+    for (var i = 0; i < buffer.length(); i++) {
+      var c = buffer.charAt(i);
+      if (c == '\n' || c == '\r') {
+        if (c == '\r' && i + 1 < buffer.length() && buffer.charAt(i + 1) == '\n') {
+          i++;
+        }
+        if (count == starts.length) {
+          starts = Arrays.copyOf(starts, 2 * count);
+        }
+        starts[count++] = i + 1;
+      }
+    }
+    this.starts = Arrays.copyOf(starts, count);
+  }
+
+  /**
+   * Returns the number of lines in the buffer.
+   */
+  public int getLineCount() {
+    return starts.length + 1;
+  }
+
+  /**
+   * Returns the line number of a {@code position}, starting at 1.
+   */
+  public int lineOf(int position) {
+    var index = Arrays.binarySearch(starts, position);
+    return index < 0 ? -index : index + 2;
+  }
+
+  /**
+   * Returns the column number of a {@code position}, starting at 1.
+   */
+  public int columnOf(int position) {
+    var line = lineOf(position);
+    return line == 1 ? position + 1 : position - starts[line - 2] + 1;
+  }
+
+  /**
+   * Converts a {@code position} to a line and column tuple.
+   */
+  public int[] lineAndColumnOf(int position) {
+    var line = lineOf(position);
+    var offset = line == 1 ? 0 : starts[line - 2];
+    return new int[] { line, position - offset + 1 };
+  }
+
+}
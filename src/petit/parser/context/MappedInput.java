@@ -0,0 +1,253 @@
+package petit.parser.context;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A parser input backed by a memory-mapped file.
+ * <p>
+ * The file content is decoded on access and never copied to the heap as a whole, so files larger than the heap can be parsed.
+ * Only the parts of the input that are flattened or tokenized are materialized as strings.
+ * Note that {@link #toString()} materializes the complete input.
+ * <p>
+ * The input is limited to {@link Integer#MAX_VALUE} characters, and is expected not to change while it is parsed.
+ */
+public abstract class MappedInput implements CharSequence {
+
+  /**
+   * Returns the input of a US-ASCII, ISO-8859-1 or UTF-8 encoded {@code file}.
+   */
+  public static MappedInput of(Path file, Charset charset) {
+    if (charset.equals(StandardCharsets.US_ASCII) || charset.equals(StandardCharsets.ISO_8859_1)) {
+      return latin1(file);
+    }
+    if (charset.equals(StandardCharsets.UTF_8)) {
+      return utf8(file);
+    }
+    throw new IllegalArgumentException("Unsupported charset: " + charset);
+  }
+
+  /**
+   * Returns the input of an US-ASCII or ISO-8859-1 encoded {@code file}, one byte per character.
+   */
+  public static MappedInput latin1(Path file) {
+    return new Latin1(map(file));
+  }
+
+  /**
+   * Returns the input of an UTF-8 encoded {@code file}.
+   * <p>
+   * The file is scanned once to count its characters, malformed sequences are decoded as {@code U+FFFD}.
+   */
+  public static MappedInput utf8(Path file) {
+    return new Utf8(map(file));
+  }
+
+  private static final int SEGMENT_SHIFT = 30;
+  private static final int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+
+  private static ByteBuffer[] map(Path file) {
+    try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      var size = channel.size();
+      var segments = new ByteBuffer[(int) ((size + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+      for (var i = 0; i < segments.length; i++) {
+        var offset = (long) i << SEGMENT_SHIFT;
+        segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(size - offset, 1L << SEGMENT_SHIFT));
+      }
+      return segments;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * The mapped segments of the file, each but the last one of {@code 1 << SEGMENT_SHIFT} bytes.
+   */
+  private final ByteBuffer[] segments;
+
+  /**
+   * The size of the file in bytes.
+   */
+  protected final long size;
+
+  private MappedInput(ByteBuffer[] segments) {
+    this.segments = segments;
+    this.size = Arrays.stream(segments).mapToLong(ByteBuffer::limit).sum();
+  }
+
+  /**
+   * Returns the byte at {@code offset} in the file, as an unsigned value.
+   */
+  protected final int byteAt(long offset) {
+    return segments[(int) (offset >>> SEGMENT_SHIFT)].get((int) (offset & SEGMENT_MASK)) & 0xff;
+  }
+
+  @Override
+  public CharSequence subSequence(int start, int end) {
+    if (start < 0 || start > end || end > length()) {
+      throw new IndexOutOfBoundsException("Invalid range: " + start + ".." + end);
+    }
+    var builder = new StringBuilder(end - start);
+    for (var i = start; i < end; i++) {
+      builder.append(charAt(i));
+    }
+    return builder.toString();
+  }
+
+  @Override
+  public String toString() {
+    return subSequence(0, length()).toString();
+  }
+
+  /**
+   * Decodes one byte per character.
+   */
+  private static class Latin1 extends MappedInput {
+
+    private Latin1(ByteBuffer[] segments) {
+      super(segments);
+      if (size > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Input too large: " + size + " characters");
+      }
+    }
+
+    @Override
+    public int length() {
+      return (int) size;
+    }
+
+    @Override
+    public char charAt(int index) {
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException(index);
+      }
+      return (char) byteAt(index);
+    }
+  }
+
+  /**
+   * Decodes UTF-8 sequences, using a sparse index of character to byte offsets and a cursor for sequential access.
+   */
+  private static class Utf8 extends MappedInput {
+
+    private static final int BLOCK_SHIFT = 10;
+
+    /**
+     * The first character index, and its byte offset, of the first code point starting at or after each block of characters.
+     */
+    private final int[] chars;
+    private final long[] offsets;
+    private final int length;
+
+    /**
+     * The character index and byte offset of the last decoded code point, packed as {@code offset << 31 | index}.
+     */
+    private volatile long cursor;
+
+    private Utf8(ByteBuffer[] segments) {
+      super(segments);
+      var chars = new int[16];
+      var offsets = new long[16];
+      var blocks = 0;
+      var index = 0L;
+      for (var offset = 0L; offset < size; ) {
+        if (index >= (long) blocks << BLOCK_SHIFT) {
+          if (blocks == chars.length) {
+            chars = Arrays.copyOf(chars, 2 * blocks);
+            offsets = Arrays.copyOf(offsets, 2 * blocks);
+          }
+          chars[blocks] = (int) index;
+          offsets[blocks++] = offset;
+        }
+        var decoded = decode(offset);
+        index += Character.charCount((int) decoded);
+        offset += decoded >>> 32;
+        if (index > Integer.MAX_VALUE) {
+          throw new IllegalArgumentException("Input too large: " + index + " characters");
+        }
+      }
+      this.chars = Arrays.copyOf(chars, blocks);
+      this.offsets = Arrays.copyOf(offsets, blocks);
+      this.length = (int) index;
+    }
+
+    @Override
+    public int length() {
+      return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+      if (index < 0 || index >= length) {
+        throw new IndexOutOfBoundsException(index);
+      }
+      var packed = cursor;
+      var current = (int) (packed & Integer.MAX_VALUE);
+      var offset = packed >>> 31;
+      if (index < current || (index >>> BLOCK_SHIFT) != (current >>> BLOCK_SHIFT)) {
+        // a surrogate pair straddling into the trailing block has no entry of its own
+        var block = Math.min(index >>> BLOCK_SHIFT, chars.length - 1);
+        if (chars[block] > index) {
+          block--;
+        }
+        current = chars[block];
+        offset = offsets[block];
+      }
+      for (;;) {
+        var decoded = decode(offset);
+        var codePoint = (int) decoded;
+        var count = Character.charCount(codePoint);
+        if (index < current + count) {
+          cursor = offset << 31 | current;
+          return count == 1 ? (char) codePoint
+               : index == current ? Character.highSurrogate(codePoint)
+               : Character.lowSurrogate(codePoint);
+        }
+        current += count;
+        offset += decoded >>> 32;
+      }
+    }
+
+    /**
+     * Decodes the code point at {@code offset}, and returns it packed with the length of its encoding as {@code length << 32 | codePoint}.
+     */
+    private long decode(long offset) {
+      var lead = byteAt(offset);
+      if (lead < 0x80) {
+        return 1L << 32 | lead;
+      }
+      int count, codePoint, minimum;
+      if (lead >= 0xc2 && lead < 0xe0) {
+        count = 2; codePoint = lead & 0x1f; minimum = 0x80;
+      } else if (lead >= 0xe0 && lead < 0xf0) {
+        count = 3; codePoint = lead & 0x0f; minimum = 0x800;
+      } else if (lead >= 0xf0 && lead < 0xf5) {
+        count = 4; codePoint = lead & 0x07; minimum = 0x10000;
+      } else {
+        return 1L << 32 | 0xfffd;
+      }
+      for (var i = 1; i < count; i++) {
+        if (offset + i >= size) {
+          return 1L << 32 | 0xfffd;
+        }
+        var next = byteAt(offset + i);
+        if ((next & 0xc0) != 0x80) {
+          return 1L << 32 | 0xfffd;
+        }
+        codePoint = codePoint << 6 | (next & 0x3f);
+      }
+      if (codePoint < minimum || codePoint > Character.MAX_CODE_POINT || Character.isSurrogate((char) codePoint) && codePoint < 0x10000) {
+        return 1L << 32 | 0xfffd;
+      }
+      return (long) count << 32 | codePoint;
+    }
+  }
+
+}
@@ -0,0 +1,266 @@
+package petit.parser.context;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * A mutable parse context.
+ * <p>
+ * A single instance carries the position, the value and the failure state through a parse, so that no intermediate {@link Result} has to be allocated.
+ * The context can be reused for subsequent parses, see {@link #reset(CharSequence, int)}.
+ */
+public class MutableContext {
+
+  /**
+   * The input buffer.
+   */
+  protected CharSequence buffer;
+
+  /**
+   * The current position, or the position of the failure.
+   */
+  protected int position;
+
+  /**
+   * Whether the last parse was successful, independently of its error message which may be {@code null}.
+   */
+  protected boolean success = true;
+
+  /**
+   * The value of the last successful parse.
+   */
+  protected Object value;
+
+  /**
+   * The error message of the last failing parse, {@code null} in case of success or if not yet rendered.
+   */
+  protected String message;
+
+  /**
+   * The supplier of the error message of the last failing parse, if not yet rendered.
+   */
+  protected Supplier<String> expected;
+
+  /**
+   * The stack of intermediate values, used by parsers that collect the values of their children.
+   */
+  private Object[] stack = new Object[16];
+  private int size;
+
+  /**
+   * Constructs a mutable parse context at the beginning of the {@code buffer}.
+   */
+  public MutableContext(CharSequence buffer) {
+    this(buffer, 0);
+  }
+
+  /**
+   * Constructs a mutable parse context.
+   *
+   * @param buffer   the buffer this context is using
+   * @param position the position this context is pointing at
+   */
+  public MutableContext(CharSequence buffer, int position) {
+    this.buffer = buffer;
+    this.position = position;
+  }
+
+  /**
+   * Resets this context to the {@code position} in a new {@code buffer}.
+   */
+  public MutableContext reset(CharSequence buffer, int position) {
+    this.buffer = buffer;
+    this.position = position;
+    this.success = true;
+    this.value = null;
+    this.message = null;
+    this.expected = null;
+    Arrays.fill(stack, 0, size, null);
+    this.size = 0;
+    return this;
+  }
+
+  /**
+   * Returns the input buffer.
+   */
+  public CharSequence getBuffer() {
+    return buffer;
+  }
+
+  /**
+   * Returns the current position, or the position of the failure.
+   */
+  public int getPosition() {
+    return position;
+  }
+
+  /**
+   * Moves the context to a new {@code position}, typically to backtrack.
+   */
+  public void setPosition(int position) {
+    this.position = position;
+  }
+
+  /**
+   * Returns the value of the last successful parse.
+   *
+   * @param <T> The type of the parse result.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T getValue() {
+    return (T) value;
+  }
+
+  /**
+   * Returns the error message of the last failing parse, {@code null} in case of success.
+   */
+  public String getMessage() {
+    if (message == null && expected != null) {
+      message = expected.get();
+      expected = null;
+    }
+    return message;
+  }
+
+  /**
+   * Returns {@code true} if the last parse was successful.
+   */
+  public boolean isSuccess() {
+    return success;
+  }
+
+  /**
+   * Returns {@code true} if the last parse failed.
+   */
+  public boolean isFailure() {
+    return !isSuccess();
+  }
+
+  /**
+   * Records a success with {@code value} at the current position, and returns {@code true}.
+   */
+  public boolean success(Object value) {
+    this.success = true;
+    this.value = value;
+    this.message = null;
+    this.expected = null;
+    return true;
+  }
+
+  /**
+   * Records a success with {@code value} at {@code position}, and returns {@code true}.
+   */
+  public boolean success(Object value, int position) {
+    this.position = position;
+    return success(value);
+  }
+
+  /**
+   * Records a failure with {@code message} at the current position, and returns {@code false}.
+   */
+  public boolean failure(String message) {
+    this.success = false;
+    this.value = null;
+    this.message = message;
+    this.expected = null;
+    return false;
+  }
+
+  /**
+   * Records a failure with {@code message} at {@code position}, and returns {@code false}.
+   */
+  public boolean failure(String message, int position) {
+    this.position = position;
+    return failure(message);
+  }
+
+  /**
+   * Records a failure at the current position, with an error {@code message} that is only rendered when requested, and returns {@code false}.
+   */
+  public boolean failure(Supplier<String> message) {
+    this.success = false;
+    this.value = null;
+    this.message = null;
+    this.expected = message;
+    return false;
+  }
+
+  /**
+   * Records a failure at {@code position}, with an error {@code message} that is only rendered when requested, and returns {@code false}.
+   */
+  public boolean failure(Supplier<String> message, int position) {
+    this.position = position;
+    return failure(message);
+  }
+
+  /**
+   * Copies the state of an immutable {@code result}, and returns {@code true} in case of a success.
+   */
+  public boolean set(Result result) {
+    return result.isSuccess()
+        ? success(result.get(), result.getPosition())
+        : failure(result::getMessage, result.getPosition());
+  }
+
+  /**
+   * Returns an immutable copy of the current state.
+   */
+  public Result toResult() {
+    return isSuccess() ? new Success(buffer, position, value) : toFailure();
+  }
+
+  /**
+   * Returns an immutable copy of the current failure.
+   */
+  public Failure toFailure() {
+    return message == null && expected != null
+        ? new Failure(buffer, position, expected)
+        : new Failure(buffer, position, message);
+  }
+
+  /**
+   * Returns a marker of the stack of intermediate values.
+   */
+  public int mark() {
+    return size;
+  }
+
+  /**
+   * Pushes the current value onto the stack of intermediate values.
+   */
+  public void push() {
+    if (size == stack.length) {
+      stack = Arrays.copyOf(stack, 2 * size);
+    }
+    stack[size++] = value;
+  }
+
+  /**
+   * Removes the intermediate values pushed since {@code mark}, and returns them as a list.
+   */
+  public List<Object> pop(int mark) {
+    var list = new ArrayList<Object>(size - mark);
+    for (var i = mark; i < size; i++) {
+      list.add(stack[i]);
+    }
+    release(mark);
+    return list;
+  }
+
+  /**
+   * Discards the intermediate values pushed since {@code mark}.
+   */
+  public void release(int mark) {
+    Arrays.fill(stack, mark, size, null);
+    size = mark;
+  }
+
+  @Override
+  public String toString() {
+    var tuple = Token.lineAndColumnOf(buffer, position);
+    return getClass().getSimpleName() + "[" + tuple[0] + ":" + tuple[1] + "]: " + (isSuccess() ? value : getMessage());
+  }
+
+}
@@ -0,0 +1,185 @@
+package petit.parser.context;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A parser input that is read incrementally from a {@link Reader}, and only retains a sliding window of characters.
+ * <p>
+ * The {@link #length()} of the input is the number of characters loaded so far, more characters are loaded with {@link #fill()}.
+ * Characters before a position that is {@link #release(int) released} are discarded; accessing them throws an {@link IndexOutOfBoundsException}.
+ * Positions are always absolute, so results and tokens keep referring to the same characters while the window slides.
+ * <p>
+ * A streaming driver typically parses a self-contained unit, loads more input and retries if the unit was cut short by the end of the window,
+ * and releases the input up to the end of the unit once it is processed.
+ */
+public class ReaderInput implements CharSequence {
+
+  /**
+   * The default number of characters read at once.
+   */
+  public static final int DEFAULT_CHUNK_SIZE = 1 << 13;
+
+  /**
+   * Returns the input of a {@code channel}, decoded with {@code charset}.
+   */
+  public static ReaderInput of(ReadableByteChannel channel, Charset charset) {
+    return new ReaderInput(Channels.newReader(channel, charset.newDecoder(), -1));
+  }
+
+  private final Reader reader;
+  private final int chunkSize;
+
+  /**
+   * The retained characters, starting at the absolute position {@code offset}.
+   */
+  private char[] window;
+  private int offset;
+  private int count;
+  private boolean complete;
+
+  /**
+   * The line number and the absolute start position of the line at {@code offset}, and whether the last released character is a carriage return.
+   */
+  private int line = 1;
+  private int lineStart;
+  private boolean carriageReturn;
+
+  public ReaderInput(Reader reader) {
+    this(reader, DEFAULT_CHUNK_SIZE);
+  }
+
+  public ReaderInput(Reader reader, int chunkSize) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("Invalid chunk size: " + chunkSize);
+    }
+    this.reader = Objects.requireNonNull(reader, "Undefined reader");
+    this.chunkSize = chunkSize;
+    this.window = new char[chunkSize];
+  }
+
+  /**
+   * Loads more characters, at least as many as are currently retained so that retried parses are amortized.
+   * Returns {@code false} if the end of the input has been reached before.
+   */
+  public boolean fill() {
+    if (complete) {
+      return false;
+    }
+    var target = count + Math.max(chunkSize, count);
+    if (target < 0 || (long) offset + target > Integer.MAX_VALUE) {
+      target = Integer.MAX_VALUE - offset;
+    }
+    if (target > window.length) {
+      window = Arrays.copyOf(window, target);
+    }
+    try {
+      while (count < target) {
+        var read = reader.read(window, count, target - count);
+        if (read < 0) {
+          complete = true;
+          reader.close();
+          break;
+        }
+        count += read;
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return true;
+  }
+
+  /**
+   * Returns {@code true} if all the input has been loaded.
+   */
+  public boolean isComplete() {
+    return complete;
+  }
+
+  /**
+   * Returns the first position that is still retained.
+   */
+  public int getOffset() {
+    return offset;
+  }
+
+  /**
+   * Discards the characters before {@code position}.
+   */
+  public void release(int position) {
+    if (position < offset || position > offset + count) {
+      throw new IndexOutOfBoundsException("Invalid release position: " + position);
+    }
+    var tuple = lineAndColumnOf(position);
+    line = tuple[0];
+    lineStart = position - tuple[1] + 1;
+    carriageReturn = position > offset ? window[position - offset - 1] == '\r' : carriageReturn;
+    count -= position - offset;
+    System.arraycopy(window, position - offset, window, 0, count);
+    offset = position;
+  }
+
+  /**
+   * Converts a retained {@code position} to a line and column tuple.
+   */
+  public int[] lineAndColumnOf(int position) {
+    if (position < offset || position > offset + count) {
+      throw new IndexOutOfBoundsException("Position " + position + " is not retained");
+    }
+    int line = this.line, start = lineStart;
+    var cr = carriageReturn;
+    for (var i = 0; i < position - offset; i++) {
+      var c = window[i];
+      if (c == '\r' || c == '\n' && !cr) {
+        line++;
+      }
+      if (c == '\r' || c == '\n') {
+        start = offset + i + 1;
+      }
+      cr = c == '\r';
+    }
+    return new int[] { line, position - start + 1 };
+  }
+
+  @Override
+  public int length() {
+    return offset + count;
+  }
+
+  @Override
+  public char charAt(int index) {
+    if (index < offset) {
+      throw new IndexOutOfBoundsException("Position " + index + " has been released");
+    }
+    if (index >= offset + count) {
+      throw new IndexOutOfBoundsException(index);
+    }
+    return window[index - offset];
+  }
+
+  @Override
+  public CharSequence subSequence(int start, int end) {
+    if (start < offset) {
+      throw new IndexOutOfBoundsException("Position " + start + " has been released");
+    }
+    if (start > end || end > offset + count) {
+      throw new IndexOutOfBoundsException("Invalid range: " + start + ".." + end);
+    }
+    return new String(window, start - offset, end - start);
+  }
+
+  /**
+   * Returns the retained characters.
+   */
+  @Override
+  public String toString() {
+    return new String(window, 0, count);
+  }
+
+}
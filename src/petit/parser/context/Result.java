@@ -5,7 +5,7 @@ package petit.parser.context;
  */
 public abstract class Result extends Context {
 
-  public Result(String buffer, int position) {
+  public Result(CharSequence buffer, int position) {
     super(buffer, position);
   }
 
@@ -7,7 +7,7 @@ public class Success extends Result {
 
   private final Object result;
 
-  public Success(String buffer, int position, Object result) {
+  public Success(CharSequence buffer, int position, Object result) {
     super(buffer, position);
     this.result = result;
   }
@@ -16,7 +16,7 @@ public class Token {
   /**
    * The backing buffer of the token.
    */
-  private final String buffer;
+  private final CharSequence buffer;
 
   /**
    * The start position of the token in the buffer.
@@ -36,7 +36,7 @@ public class Token {
   /**
    * Constructs a token from the parsed value, the input buffer, and the start and stop position in the input buffer.
    */
-  public Token(String buffer, int start, int stop, Object value) {
+  public Token(CharSequence buffer, int start, int stop, Object value) {
     this.buffer = buffer;
     this.start = start;
     this.stop = stop;
@@ -46,7 +46,7 @@ public class Token {
   /**
    * The backing buffer of the token.
    */
-  public String getBuffer() {
+  public CharSequence getBuffer() {
     return buffer;
   }
 
@@ -54,7 +54,7 @@ public class Token {
    * The consumed input of the token.
    */
   public String getInput() {
-    return buffer.substring(start, stop);
+    return buffer.subSequence(start, stop).toString();
   }
 
   /**
@@ -142,18 +142,14 @@ public class Token {
 
   /**
    * Converts the {@code position} index in a {@code buffer} to a line and column tuple.
+   * <p>
+   * The newlines of the {@code buffer} are indexed on first use, see {@link LineIndex}.
+   * A streamed {@link ReaderInput} tracks the lines itself, and only converts positions that are still retained.
    */
-  public static int[] lineAndColumnOf(String buffer, int position) {
-    var tokens = NEWLINE_PARSER.token().<Token>matchesSkipping(buffer);
-    int line = 1, offset = 0;
-    for (var token : tokens) {
-      if (position < token.stop) {
-        return new int[] { line, position - offset + 1 };
-      }
-      line++;
-      offset = token.stop;
-    }
-    return new int[] { line, position - offset + 1 };
+  public static int[] lineAndColumnOf(CharSequence buffer, int position) {
+    return buffer instanceof ReaderInput input
+        ? input.lineAndColumnOf(position)
+        : LineIndex.of(buffer).lineAndColumnOf(position);
   }
 
 }
@@ -2,9 +2,11 @@ package petit.parser.primitive;
 
 import petit.parser.PetitParser;
 import petit.parser.context.Context;
+import petit.parser.context.MutableContext;
 import petit.parser.context.Result;
 
 import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
  * Parses a single character.
@@ -15,14 +17,15 @@ public class CharacterParser extends PetitParser {
    * Returns a parser that accepts a specific {@link CharacterPredicate}.
    */
   public static CharacterParser of(CharacterPredicate predicate, String message) {
-    return new CharacterParser(predicate, message);
+    Objects.requireNonNull(message, "Undefined message");
+    return new CharacterParser(predicate, () -> message);
   }
 
   /**
    * Returns a parser that accepts a specific {@code character}.
    */
   public static CharacterParser of(char character) {
-    return of(character, "'" + toReadableString(character) + "' expected");
+    return new CharacterParser(CharacterPredicate.of(character), () -> "'" + toReadableString(character) + "' expected");
   }
 
   public static CharacterParser of(char character, String message) {
@@ -44,7 +47,7 @@ public class CharacterParser extends PetitParser {
    * Returns a parser that accepts any of the provided characters.
    */
   public static CharacterParser anyOf(String characters) {
-    return anyOf(characters, "any of '" + toReadableString(characters) + "' " + "expected");
+    return new CharacterParser(CharacterPredicate.anyOf(characters), () -> "any of '" + toReadableString(characters) + "' " + "expected");
   }
 
   public static CharacterParser anyOf(String chars, String message) {
@@ -66,7 +69,7 @@ public class CharacterParser extends PetitParser {
    * Returns a parser that accepts none of the provided characters.
    */
   public static CharacterParser noneOf(String characters) {
-    return noneOf(characters, "none of '" + toReadableString(characters) + "'" + " expected");
+    return new CharacterParser(CharacterPredicate.noneOf(characters), () -> "none of '" + toReadableString(characters) + "'" + " expected");
   }
 
   public static CharacterParser noneOf(String chars, String message) {
@@ -81,7 +84,7 @@ public class CharacterParser extends PetitParser {
   }
 
   public static CharacterParser digit(String message) {
-    return new CharacterParser(Character::isDigit, message);
+    return of(Character::isDigit, message);
   }
 
   /**
@@ -113,7 +116,7 @@ public class CharacterParser extends PetitParser {
    * A caret {@code ^} at the beginning negates the pattern.
    */
   public static CharacterParser pattern(String pattern) {
-    return pattern(pattern, "[" + toReadableString(pattern) + "] expected");
+    return new CharacterParser(CharacterPredicate.pattern(pattern), () -> "[" + toReadableString(pattern) + "] expected");
   }
 
   public static CharacterParser pattern(String pattern, String message) {
@@ -124,7 +127,7 @@ public class CharacterParser extends PetitParser {
    * Returns a parser that accepts a specific character range.
    */
   public static CharacterParser range(char start, char stop) {
-    return range(start, stop, toReadableString(start) + ".." + toReadableString(stop) + " expected");
+    return new CharacterParser(CharacterPredicate.range(start, stop), () -> toReadableString(start) + ".." + toReadableString(stop) + " expected");
   }
 
   public static CharacterParser range(char start, char stop, String message) {
@@ -165,10 +168,22 @@ public class CharacterParser extends PetitParser {
   }
 
   private final CharacterPredicate matcher;
-  private final String message;
+  final CharacterPredicate.CompiledCharacterPredicate compiled;
+  final Supplier<String> message;
 
-  private CharacterParser(CharacterPredicate matcher, String message) {
-    this.matcher = Objects.requireNonNull(matcher, "Undefined matcher");
+  /**
+   * The error {@code message} is only rendered when a failure is reported.
+   */
+  private CharacterParser(CharacterPredicate matcher, Supplier<String> message) {
+    this(matcher, CharacterPredicate.compile(Objects.requireNonNull(matcher, "Undefined matcher")), message);
+  }
+
+  /**
+   * The {@code matcher} is kept to compare parsers, characters are tested with the {@code compiled} predicate.
+   */
+  private CharacterParser(CharacterPredicate matcher, CharacterPredicate.CompiledCharacterPredicate compiled, Supplier<String> message) {
+    this.matcher = matcher;
+    this.compiled = compiled;
     this.message = Objects.requireNonNull(message, "Undefined message");
   }
 
@@ -178,7 +193,20 @@ public class CharacterParser extends PetitParser {
     var position = context.getPosition();
     if (position < buffer.length()) {
       var result = buffer.charAt(position);
-      if (matcher.test(result)) {
+      if (compiled.test(result)) {
+        return context.success(result, position + 1);
+      }
+    }
+    return context.failure(message);
+  }
+
+  @Override
+  public boolean parseOn(MutableContext context) {
+    var buffer = context.getBuffer();
+    var position = context.getPosition();
+    if (position < buffer.length()) {
+      var result = buffer.charAt(position);
+      if (compiled.test(result)) {
         return context.success(result, position + 1);
       }
     }
@@ -186,8 +214,8 @@ public class CharacterParser extends PetitParser {
   }
 
   @Override
-  public int fastParseOn(String buffer, int position) {
-    return position < buffer.length() && matcher.test(buffer.charAt(position)) ? position + 1 : -1;
+  public int fastParseOn(CharSequence buffer, int position) {
+    return position < buffer.length() && compiled.test(buffer.charAt(position)) ? position + 1 : -1;
   }
 
   @Override
@@ -200,17 +228,36 @@ public class CharacterParser extends PetitParser {
   protected boolean hasEqualProperties(PetitParser other) {
     return super.hasEqualProperties(other)
         && Objects.equals(matcher, ((CharacterParser) other).matcher)
-        && Objects.equals(message, ((CharacterParser) other).message);
+        && Objects.equals(message.get(), ((CharacterParser) other).message.get());
+  }
+
+  @Override
+  protected int hashProperties() {
+    return 31 * super.hashProperties() + Objects.hash(matcher, message.get());
   }
 
   @Override
   public CharacterParser copy() {
-    return of(matcher, message);
+    return new CharacterParser(matcher, compiled, message);
+  }
+
+  /**
+   * Returns the predicate of the accepted characters.
+   */
+  public CharacterPredicate getMatcher() {
+    return matcher;
+  }
+
+  /**
+   * Returns the compiled predicate the characters are tested with, see {@link CharacterPredicate#compile(CharacterPredicate)}.
+   */
+  public CharacterPredicate.CompiledCharacterPredicate getCompiledMatcher() {
+    return compiled;
   }
 
   @Override
   public String toString() {
-    return super.toString() + "[" + message + "]";
+    return super.toString() + "[" + message.get() + "]";
   }
 
   private static String toReadableString(String characters) {
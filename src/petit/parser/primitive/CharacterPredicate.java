@@ -3,6 +3,7 @@ package petit.parser.primitive;
 import petit.parser.PetitParser;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -46,7 +47,7 @@ public interface CharacterPredicate {
    * Returns a character predicate that matches the given {@code character}.
    */
   static CharacterPredicate of(char character) {
-    return value -> value == character;
+    return new SingleCharacterPredicate(character);
   }
 
   /**
@@ -84,6 +85,13 @@ public interface CharacterPredicate {
     return PatternParser.PATTERN.parse(pattern).get();
   }
 
+  /**
+   * Returns a character predicate that is equivalent to {@code predicate}, but looks up characters in precomputed bit sets.
+   */
+  static CompiledCharacterPredicate compile(CharacterPredicate predicate) {
+    return predicate instanceof CompiledCharacterPredicate compiled ? compiled : new CompiledCharacterPredicate(predicate);
+  }
+
   class PatternParser {
     static final PetitParser PATTERN_SIMPLE = CharacterParser.any().map((Character value) -> new CharacterRange(value, value));
     static final PetitParser PATTERN_RANGE = CharacterParser.any().seq(CharacterParser.of('-')).seq(CharacterParser.any()).map((List<Character> values) -> new CharacterRange(values.get(0), values.get(2)));
@@ -125,4 +133,107 @@ public interface CharacterPredicate {
     }
   }
 
+  /**
+   * The character predicate that matches a single character.
+   */
+  record SingleCharacterPredicate(char character) implements CharacterPredicate {
+
+    @Override
+    public boolean test(char value) {
+      return value == character;
+    }
+  }
+
+  /**
+   * A character predicate that is precomputed in bit sets.
+   * <p>
+   * ASCII characters are looked up in two words computed upfront.
+   * Other characters are looked up in pages of 256 characters, each computed the first time one of its characters is tested.
+   */
+  final class CompiledCharacterPredicate implements CharacterPredicate {
+
+    private static final Page NONE = new Page(new long[4]);
+    private static final Page ALL = new Page(new long[] { -1L, -1L, -1L, -1L });
+
+    private final CharacterPredicate predicate;
+    private final long low;
+    private final long high;
+    private final Page[] pages = new Page[256];
+
+    private CompiledCharacterPredicate(CharacterPredicate predicate) {
+      this.predicate = predicate;
+      var low = 0L;
+      var high = 0L;
+      for (var i = 0; i < 64; i++) {
+        if (predicate.test((char) i)) {
+          low |= 1L << i;
+        }
+        if (predicate.test((char) (i + 64))) {
+          high |= 1L << i;
+        }
+      }
+      this.low = low;
+      this.high = high;
+    }
+
+    /**
+     * Returns the predicate this predicate is compiled from.
+     */
+    public CharacterPredicate getPredicate() {
+      return predicate;
+    }
+
+    @Override
+    public boolean test(char value) {
+      if (value < 64) {
+        return (low & 1L << value) != 0;
+      }
+      if (value < 128) {
+        return (high & 1L << value) != 0;
+      }
+      var page = pages[value >>> 8];
+      if (page == null) {
+        page = pages[value >>> 8] = page(value >>> 8);
+      }
+      return (page.words[(value >>> 6) & 3] & 1L << value) != 0;
+    }
+
+    /**
+     * Returns the set of matched characters, assembled from the pages that are computed once and shared with {@link #test(char)}.
+     */
+    public BitSet toBitSet() {
+      var words = new long[4 * pages.length];
+      for (var index = 0; index < pages.length; index++) {
+        var page = pages[index];
+        if (page == null) {
+          page = pages[index] = page(index);
+        }
+        System.arraycopy(page.words, 0, words, 4 * index, 4);
+      }
+      return BitSet.valueOf(words);
+    }
+
+    private Page page(int index) {
+      var words = new long[4];
+      for (var i = 0; i < 256; i++) {
+        if (predicate.test((char) (index << 8 | i))) {
+          words[i >>> 6] |= 1L << i;
+        }
+      }
+      return Arrays.equals(words, NONE.words) ? NONE : Arrays.equals(words, ALL.words) ? ALL : new Page(words);
+    }
+
+    /**
+     * The bits of a page of characters, published safely through the final field.
+     */
+    private static final class Page {
+
+      private final long[] words;
+
+      private Page(long[] words) {
+        this.words = words;
+      }
+    }
+  }
+
 }
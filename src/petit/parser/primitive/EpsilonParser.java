@@ -2,6 +2,7 @@ package petit.parser.primitive;
 
 import petit.parser.PetitParser;
 import petit.parser.context.Context;
+import petit.parser.context.MutableContext;
 import petit.parser.context.Result;
 
 /**
@@ -15,7 +16,12 @@ public class EpsilonParser extends PetitParser {
   }
 
   @Override
-  public int fastParseOn(String buffer, int position) {
+  public boolean parseOn(MutableContext context) {
+    return context.success(null);
+  }
+
+  @Override
+  public int fastParseOn(CharSequence buffer, int position) {
     return position;
   }
 
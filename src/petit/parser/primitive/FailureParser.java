@@ -2,6 +2,7 @@ package petit.parser.primitive;
 
 import petit.parser.PetitParser;
 import petit.parser.context.Context;
+import petit.parser.context.MutableContext;
 import petit.parser.context.Result;
 
 import java.util.Objects;
@@ -30,7 +31,12 @@ public class FailureParser extends PetitParser {
   }
 
   @Override
-  public int fastParseOn(String buffer, int position) {
+  public boolean parseOn(MutableContext context) {
+    return context.failure(message);
+  }
+
+  @Override
+  public int fastParseOn(CharSequence buffer, int position) {
     return -1;
   }
 
@@ -39,6 +45,11 @@ public class FailureParser extends PetitParser {
     return super.hasEqualProperties(other) && Objects.equals(message, ((FailureParser) other).message);
   }
 
+  @Override
+  protected int hashProperties() {
+    return 31 * super.hashProperties() + Objects.hashCode(message);
+  }
+
   @Override
   public FailureParser copy() {
     return new FailureParser(message);
@@ -0,0 +1,189 @@
+package petit.parser.primitive;
+
+import petit.parser.PetitParser;
+import petit.parser.context.Context;
+import petit.parser.context.MutableContext;
+import petit.parser.context.Result;
+import petit.parser.repeating.RepeatingParser;
+
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Parses a span of the characters accepted by a {@link CharacterParser}, repeated {@code min} to {@code max} times, in a single loop over the buffer.
+ * <p>
+ * The span is returned as the list of its characters like a possessive repetition, flattened to a string, or as its length, see {@link Mode}.
+ * Too short a span fails like the repetition, at the first character that is not accepted,
+ * unless a message is provided: then it fails at the start of the span like a flatten with a message.
+ */
+public class SpanParser extends PetitParser {
+
+  /**
+   * The value returned for a span.
+   */
+  public enum Mode {
+    /** The list of the characters. */
+    LIST,
+    /** The string of the characters. */
+    FLATTEN,
+    /** The number of characters. */
+    COUNT
+  }
+
+  /**
+   * Returns a parser that accepts a span of the characters of {@code parser}.
+   */
+  public static SpanParser of(CharacterParser parser, int min, int max, Mode mode) {
+    return new SpanParser(parser.getMatcher(), parser.compiled, parser.message, false, min, max, mode);
+  }
+
+  /**
+   * Returns a parser that accepts a span of the characters of {@code parser}, and that fails at its start with the provided error {@code message}.
+   */
+  public static SpanParser of(CharacterParser parser, int min, int max, Mode mode, String message) {
+    Objects.requireNonNull(message, "Undefined message");
+    return new SpanParser(parser.getMatcher(), parser.compiled, () -> message, true, min, max, mode);
+  }
+
+  private final CharacterPredicate matcher;
+  private final CharacterPredicate.CompiledCharacterPredicate compiled;
+  private final Supplier<String> message;
+  private final boolean failAtStart;
+  private final int min;
+  private final int max;
+  private final Mode mode;
+
+  private SpanParser(CharacterPredicate matcher, CharacterPredicate.CompiledCharacterPredicate compiled, Supplier<String> message, boolean failAtStart, int min, int max, Mode mode) {
+    if (min < 0) {
+      throw new IllegalArgumentException("Invalid min repetitions: " + min);
+    }
+    if (max != RepeatingParser.UNBOUNDED && min > max) {
+      throw new IllegalArgumentException("Invalid max repetitions: " + max);
+    }
+    this.matcher = matcher;
+    this.compiled = compiled;
+    this.message = message;
+    this.failAtStart = failAtStart;
+    this.min = min;
+    this.max = max;
+    this.mode = Objects.requireNonNull(mode, "Undefined mode");
+  }
+
+  /**
+   * Returns the end of the span starting at {@code position}.
+   */
+  private int scan(CharSequence buffer, int position) {
+    var length = buffer.length();
+    var limit = max == RepeatingParser.UNBOUNDED || length - position <= max ? length : position + max;
+    while (position < limit && compiled.test(buffer.charAt(position))) {
+      position++;
+    }
+    return position;
+  }
+
+  private Object value(CharSequence buffer, int start, int stop) {
+    return switch (mode) {
+      case LIST -> {
+        var elements = new ArrayList<Object>(stop - start);
+        for (var i = start; i < stop; i++) {
+          elements.add(buffer.charAt(i));
+        }
+        yield elements;
+      }
+      case FLATTEN -> buffer.subSequence(start, stop).toString();
+      case COUNT -> stop - start;
+    };
+  }
+
+  @Override
+  public Result parseOn(Context context) {
+    var buffer = context.getBuffer();
+    var start = context.getPosition();
+    var stop = scan(buffer, start);
+    if (stop - start < min) {
+      return failAtStart ? context.failure(message) : context.failure(message, stop);
+    }
+    return context.success(value(buffer, start, stop), stop);
+  }
+
+  @Override
+  public boolean parseOn(MutableContext context) {
+    var buffer = context.getBuffer();
+    var start = context.getPosition();
+    var stop = scan(buffer, start);
+    if (stop - start < min) {
+      return failAtStart ? context.failure(message) : context.failure(message, stop);
+    }
+    return context.success(value(buffer, start, stop), stop);
+  }
+
+  @Override
+  public int fastParseOn(CharSequence buffer, int position) {
+    var stop = scan(buffer, position);
+    return stop - position < min ? -1 : stop;
+  }
+
+  /**
+   * Returns the predicate of the accepted characters.
+   */
+  public CharacterPredicate getMatcher() {
+    return matcher;
+  }
+
+  /**
+   * Returns the compiled predicate the characters are tested with, see {@link CharacterPredicate#compile(CharacterPredicate)}.
+   */
+  public CharacterPredicate.CompiledCharacterPredicate getCompiledMatcher() {
+    return compiled;
+  }
+
+  /**
+   * Returns the minimum length of the span.
+   */
+  public int getMin() {
+    return min;
+  }
+
+  /**
+   * Returns the maximum length of the span, or {@link RepeatingParser#UNBOUNDED}.
+   */
+  public int getMax() {
+    return max;
+  }
+
+  /**
+   * Returns the value returned for a span.
+   */
+  public Mode getMode() {
+    return mode;
+  }
+
+  @Override
+  protected boolean hasEqualProperties(PetitParser other) {
+    var span = (SpanParser) other;
+    return super.hasEqualProperties(other)
+        && Objects.equals(matcher, span.matcher)
+        && Objects.equals(message.get(), span.message.get())
+        && failAtStart == span.failAtStart
+        && min == span.min
+        && max == span.max
+        && mode == span.mode;
+  }
+
+  @Override
+  protected int hashProperties() {
+    return 31 * super.hashProperties() + Objects.hash(matcher, message.get(), failAtStart, min, max, mode);
+  }
+
+  @Override
+  public SpanParser copy() {
+    return new SpanParser(matcher, compiled, message, failAtStart, min, max, mode);
+  }
+
+  @Override
+  public String toString() {
+    return super.toString() + "[" + mode + ", " + min + ".." + (max == RepeatingParser.UNBOUNDED ? "*" : max) + ", " + message.get() + "]";
+  }
+
+}
@@ -2,10 +2,14 @@ package petit.parser.primitive;
 
 import petit.parser.PetitParser;
 import petit.parser.context.Context;
+import petit.parser.context.MutableContext;
 import petit.parser.context.Result;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
-import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * Parses a sequence of characters.
@@ -16,37 +20,79 @@ public class StringParser extends PetitParser {
    * Construct a parser that accepts the provides {@link String} {@code value}.
    */
   public static PetitParser of(String value) {
-    return of(value, value + " expected");
+    return new StringParser(value, false, () -> value + " expected");
   }
 
   /**
    * Construct a parser that accepts the provides {@link String} {@code value }, and that fails with the error provided error {@code message}.
    */
   public static PetitParser of(String value, String message) {
-    return new StringParser(value.length(), value::equals, message);
+    Objects.requireNonNull(message, "Undefined message");
+    return new StringParser(value, false, () -> message);
   }
 
   /**
    * Construct a parser that accepts the provides {@link String} {@code value } case insensitive.
    */
   public static PetitParser ofIgnoringCase(String value) {
-    return ofIgnoringCase(value, value + " expected");
+    return new StringParser(value, true, () -> value + " expected");
   }
 
   /**
    * Construct a parser that accepts the provides {@link String} {@code value } case insensitive, and that fails with the error provided error {@code message}.
    */
   public static PetitParser ofIgnoringCase(String value, String message) {
-    return new StringParser(value.length(), value::equalsIgnoreCase, message);
+    Objects.requireNonNull(message, "Undefined message");
+    return new StringParser(value, true, () -> message);
   }
 
-  private final int size;
-  private final Predicate<String> predicate;
-  private final String message;
+  /**
+   * Construct a parser that accepts the longest of the provided {@code values}, see {@link TrieParser}.
+   */
+  public static PetitParser anyOf(Collection<String> values) {
+    return TrieParser.of(toLiterals(values));
+  }
+
+  /**
+   * Construct a parser that accepts the longest of the provided {@code values}, and that fails with the error provided error {@code message}.
+   */
+  public static PetitParser anyOf(Collection<String> values, String message) {
+    return TrieParser.of(toLiterals(values), message);
+  }
 
-  private StringParser(int size, Predicate<String> predicate, String message) {
-    this.size = size;
-    this.predicate = Objects.requireNonNull(predicate, "Undefined predicate");
+  /**
+   * Construct a parser that accepts the longest of the keys of {@code values}, and returns the value mapped to it.
+   */
+  public static PetitParser anyOf(Map<String, ?> values) {
+    return TrieParser.of(values);
+  }
+
+  /**
+   * Construct a parser that accepts the longest of the keys of {@code values}, returns the value mapped to it,
+   * and that fails with the error provided error {@code message}.
+   */
+  public static PetitParser anyOf(Map<String, ?> values, String message) {
+    return TrieParser.of(values, message);
+  }
+
+  private static Map<String, String> toLiterals(Collection<String> values) {
+    var literals = new LinkedHashMap<String, String>();
+    for (var value : values) {
+      literals.put(value, value);
+    }
+    return literals;
+  }
+
+  private final String value;
+  private final boolean ignoreCase;
+  private final Supplier<String> message;
+
+  /**
+   * The error {@code message} is only rendered when a failure is reported.
+   */
+  private StringParser(String value, boolean ignoreCase, Supplier<String> message) {
+    this.value = Objects.requireNonNull(value, "Undefined value");
+    this.ignoreCase = ignoreCase;
     this.message = Objects.requireNonNull(message, "Undefined message");
   }
 
@@ -54,38 +100,93 @@ public class StringParser extends PetitParser {
   public Result parseOn(Context context) {
     var buffer = context.getBuffer();
     var start = context.getPosition();
-    var stop = start + size;
-    if (stop <= buffer.length()) {
-      var result = buffer.substring(start, stop);
-      if (predicate.test(result)) {
-        return context.success(result, stop);
-      }
+    if (matches(buffer, start)) {
+      var stop = start + value.length();
+      return context.success(ignoreCase ? buffer.subSequence(start, stop).toString() : value, stop);
+    }
+    return context.failure(message);
+  }
+
+  @Override
+  public boolean parseOn(MutableContext context) {
+    var buffer = context.getBuffer();
+    var start = context.getPosition();
+    if (matches(buffer, start)) {
+      var stop = start + value.length();
+      return context.success(ignoreCase ? buffer.subSequence(start, stop).toString() : value, stop);
     }
     return context.failure(message);
   }
 
   @Override
-  public int fastParseOn(String buffer, int position) {
-    var stop = position + size;
-    return stop <= buffer.length() && predicate.test(buffer.substring(position, stop)) ? stop : -1;
+  public int fastParseOn(CharSequence buffer, int position) {
+    return matches(buffer, position) ? position + value.length() : -1;
+  }
+
+  /**
+   * Compares the value to the {@code buffer} at {@code position} in place, without copying the input.
+   * <p>
+   * Strings are compared with {@link String#regionMatches(boolean, int, String, int, int)}, other buffers character by character.
+   */
+  private boolean matches(CharSequence buffer, int position) {
+    var size = value.length();
+    if (position > buffer.length() - size) {
+      return false;
+    }
+    if (buffer instanceof String string) {
+      return string.regionMatches(ignoreCase, position, value, 0, size);
+    }
+    for (var i = 0; i < size; i++) {
+      var actual = buffer.charAt(position + i);
+      var expected = value.charAt(i);
+      if (actual != expected && !(ignoreCase && equalsIgnoringCase(actual, expected))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean equalsIgnoringCase(char first, char second) {
+    var upperFirst = Character.toUpperCase(first);
+    var upperSecond = Character.toUpperCase(second);
+    return upperFirst == upperSecond || Character.toLowerCase(upperFirst) == Character.toLowerCase(upperSecond);
   }
 
   @Override
   protected boolean hasEqualProperties(PetitParser other) {
     return super.hasEqualProperties(other)
-        && Objects.equals(size, ((StringParser) other).size)
-        && Objects.equals(predicate, ((StringParser) other).predicate)
-        && Objects.equals(message, ((StringParser) other).message);
+        && Objects.equals(value, ((StringParser) other).value)
+        && Objects.equals(ignoreCase, ((StringParser) other).ignoreCase)
+        && Objects.equals(message.get(), ((StringParser) other).message.get());
+  }
+
+  @Override
+  protected int hashProperties() {
+    return 31 * super.hashProperties() + Objects.hash(value, ignoreCase, message.get());
   }
 
   @Override
   public StringParser copy() {
-    return new StringParser(size, predicate, message);
+    return new StringParser(value, ignoreCase, message);
+  }
+
+  /**
+   * Returns the accepted value.
+   */
+  public String getValue() {
+    return value;
+  }
+
+  /**
+   * Returns {@code true} if the value is accepted case insensitive.
+   */
+  public boolean isIgnoringCase() {
+    return ignoreCase;
   }
 
   @Override
   public String toString() {
-    return super.toString() + "[" + message + "]";
+    return super.toString() + "[" + message.get() + "]";
   }
 
 }
@@ -0,0 +1,192 @@
+package petit.parser.primitive;
+
+import petit.parser.PetitParser;
+import petit.parser.context.Context;
+import petit.parser.context.MutableContext;
+import petit.parser.context.Result;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Parses the longest of a set of literals in a single pass over the input, and returns the value mapped to it.
+ * <p>
+ * The literals are stored in a trie, so that matching does not depend on the number of literals.
+ * As the longest literal is selected, it behaves like an ordered choice of {@link StringParser}s where longer literals come first.
+ */
+public class TrieParser extends PetitParser {
+
+  /**
+   * Returns a parser that accepts the longest of the {@code literals}, and returns the value mapped to it.
+   */
+  public static TrieParser of(Map<String, ?> literals) {
+    var copy = new LinkedHashMap<String, Object>(literals);
+    return new TrieParser(copy, () -> "one of " + copy.keySet() + " expected");
+  }
+
+  /**
+   * Returns a parser that accepts the longest of the {@code literals}, returns the value mapped to it,
+   * and that fails with the error provided error {@code message}.
+   */
+  public static TrieParser of(Map<String, ?> literals, String message) {
+    Objects.requireNonNull(message, "Undefined message");
+    return new TrieParser(new LinkedHashMap<>(literals), () -> message);
+  }
+
+  private final Map<String, Object> literals;
+  private final Node root;
+  private final Supplier<String> message;
+
+  private TrieParser(Map<String, Object> literals, Supplier<String> message) {
+    this(literals, build(literals), message);
+  }
+
+  private TrieParser(Map<String, Object> literals, Node root, Supplier<String> message) {
+    this.literals = Collections.unmodifiableMap(literals);
+    this.root = root;
+    this.message = Objects.requireNonNull(message, "Undefined message");
+  }
+
+  private static Node build(Map<String, Object> literals) {
+    if (literals.isEmpty()) {
+      throw new IllegalArgumentException("Trie parser cannot be empty.");
+    }
+    var root = new Builder();
+    for (var entry : literals.entrySet()) {
+      var node = root;
+      for (var c : Objects.requireNonNull(entry.getKey(), "Undefined literal").toCharArray()) {
+        node = node.children.computeIfAbsent(c, key -> new Builder());
+      }
+      node.terminal = true;
+      node.value = entry.getValue();
+    }
+    return root.build(0);
+  }
+
+  /**
+   * Returns the terminal node of the longest literal at {@code position}, or {@code null}.
+   */
+  private Node longest(CharSequence buffer, int position) {
+    var node = root;
+    var result = root.terminal ? root : null;
+    for (var i = position; i < buffer.length(); i++) {
+      node = node.child(buffer.charAt(i));
+      if (node == null) {
+        break;
+      }
+      if (node.terminal) {
+        result = node;
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public Result parseOn(Context context) {
+    var position = context.getPosition();
+    var node = longest(context.getBuffer(), position);
+    return node == null ? context.failure(message) : context.success(node.value, position + node.depth);
+  }
+
+  @Override
+  public boolean parseOn(MutableContext context) {
+    var position = context.getPosition();
+    var node = longest(context.getBuffer(), position);
+    return node == null ? context.failure(message) : context.success(node.value, position + node.depth);
+  }
+
+  @Override
+  public int fastParseOn(CharSequence buffer, int position) {
+    var node = longest(buffer, position);
+    return node == null ? -1 : position + node.depth;
+  }
+
+  /**
+   * Returns the accepted literals and their values.
+   */
+  public Map<String, Object> getLiterals() {
+    return literals;
+  }
+
+  @Override
+  protected boolean hasEqualProperties(PetitParser other) {
+    return super.hasEqualProperties(other)
+        && Objects.equals(literals, ((TrieParser) other).literals)
+        && Objects.equals(message.get(), ((TrieParser) other).message.get());
+  }
+
+  @Override
+  protected int hashProperties() {
+    return 31 * super.hashProperties() + Objects.hash(literals, message.get());
+  }
+
+  @Override
+  public TrieParser copy() {
+    return new TrieParser(literals, root, message);
+  }
+
+  @Override
+  public String toString() {
+    return super.toString() + "[" + message.get() + "]";
+  }
+
+  /**
+   * An immutable node of the trie, with its children sorted by character.
+   */
+  private static final class Node {
+
+    private final char[] keys;
+    private final Node[] children;
+    private final boolean terminal;
+    private final Object value;
+    private final int depth;
+
+    private Node(char[] keys, Node[] children, boolean terminal, Object value, int depth) {
+      this.keys = keys;
+      this.children = children;
+      this.terminal = terminal;
+      this.value = value;
+      this.depth = depth;
+    }
+
+    private Node child(char key) {
+      if (keys.length < 8) {
+        for (var i = 0; i < keys.length; i++) {
+          if (keys[i] == key) {
+            return children[i];
+          }
+        }
+        return null;
+      }
+      var index = Arrays.binarySearch(keys, key);
+      return index < 0 ? null : children[index];
+    }
+  }
+
+  /**
+   * A mutable node of the trie, used while building.
+   */
+  private static final class Builder {
+
+    private final TreeMap<Character, Builder> children = new TreeMap<>();
+    private boolean terminal;
+    private Object value;
+
+    private Node build(int depth) {
+      var keys = new char[children.size()];
+      var nodes = new Node[children.size()];
+      var index = 0;
+      for (var entry : children.entrySet()) {
+        keys[index] = entry.getKey();
+        nodes[index++] = entry.getValue().build(depth + 1);
+      }
+      return new Node(keys, nodes, terminal, value, depth);
+    }
+  }
+
+}
@@ -47,7 +47,7 @@ public class LazyRepeatingParser extends LimitedRepeatingParser {
   }
 
   @Override
-  public int fastParseOn(String buffer, int position) {
+  public int fastParseOn(CharSequence buffer, int position) {
     var count = 0;
     var current = position;
     while (count < min) {
@@ -2,6 +2,7 @@ package petit.parser.repeating;
 
 import petit.parser.PetitParser;
 import petit.parser.context.Context;
+import petit.parser.context.MutableContext;
 import petit.parser.context.Result;
 
 import java.util.ArrayList;
@@ -39,7 +40,31 @@ public class PossessiveRepeatingParser extends RepeatingParser {
   }
 
   @Override
-  public int fastParseOn(String buffer, int position) {
+  public boolean parseOn(MutableContext context) {
+    var mark = context.mark();
+    var count = 0;
+    while (count < min) {
+      if (!delegate.parseOn(context)) {
+        context.release(mark);
+        return false;
+      }
+      context.push();
+      count++;
+    }
+    while (max == UNBOUNDED || count < max) {
+      var position = context.getPosition();
+      if (!delegate.parseOn(context)) {
+        context.setPosition(position);
+        break;
+      }
+      context.push();
+      count++;
+    }
+    return context.success(context.pop(mark));
+  }
+
+  @Override
+  public int fastParseOn(CharSequence buffer, int position) {
     var count = 0;
     var current = position;
     while (count < min) {
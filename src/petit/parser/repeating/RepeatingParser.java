@@ -27,6 +27,20 @@ public abstract class RepeatingParser extends DelegateParser {
     }
   }
 
+  /**
+   * Returns the minimum number of repetitions.
+   */
+  public int getMin() {
+    return min;
+  }
+
+  /**
+   * Returns the maximum number of repetitions, or {@link #UNBOUNDED}.
+   */
+  public int getMax() {
+    return max;
+  }
+
   @Override
   public boolean hasEqualProperties(PetitParser other) {
     return super.hasEqualProperties(other)
@@ -34,6 +48,11 @@ public abstract class RepeatingParser extends DelegateParser {
         && Objects.equals(max, ((RepeatingParser) other).max);
   }
 
+  @Override
+  protected int hashProperties() {
+    return 31 * super.hashProperties() + Objects.hash(min, max);
+  }
+
   @Override
   public String toString() {
     return super.toString() + "[" + getRange() + "]";
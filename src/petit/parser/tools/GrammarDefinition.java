@@ -1,14 +1,22 @@
 package petit.parser.tools;
 
 import petit.parser.PetitParser;
+import petit.parser.combinators.LeftRecursiveParser;
+import petit.parser.combinators.MemoParser;
 import petit.parser.context.Context;
 import petit.parser.context.Result;
+import petit.parser.utils.Mirror;
 
 import java.util.Map;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Objects;
+import java.util.WeakHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -23,10 +31,18 @@ import java.util.stream.Collectors;
  * To redefine or attach actions to productions use {@link GrammarDefinition#redef(String, Function)}, {@link GrammarDefinition#redef(String, petit.parser.PetitParser)} and {@link GrammarDefinition#action(String, Function)}.
  * <p>
  * To build the resulting grammar call {@link GrammarDefinition#build()}, or wrap it in the class {@link GrammarParser}.
+ * <p>
+ * Productions may be left-recursive, such as {@code def("expr", ref("expr").seq(of('+')).seq(ref("term")).or(ref("term")))}.
+ * The built parser grows the results of enough left-recursive productions with a {@link LeftRecursiveParser},
+ * so that every cycle of left recursion passes through one of them.
+ * <p>
+ * To memoize selected productions, build the grammar with a {@link MemoizationPlan}.
  */
 public class GrammarDefinition {
 
   private final Map<String, PetitParser> parsers = new HashMap<>();
+  private final Map<PetitParser, PetitParser> wrappers = new IdentityHashMap<>();
+  private final Map<PetitParser, String> copies = new WeakHashMap<>();
 
   /**
    * Returns a reference to the production with the given {@code name}.
@@ -88,8 +104,51 @@ public class GrammarDefinition {
     return resolve(new Reference(name));
   }
 
+  /**
+   * Builds a parser starting from the production {@code "start"}, that memoizes the productions of the {@code plan}.
+   */
+  public PetitParser build(MemoizationPlan plan) {
+    return build("start", plan);
+  }
+
+  /**
+   * Builds a parser starting from the provided production {@code name}, that memoizes the productions of the {@code plan}.
+   * <p>
+   * The plan is applied to a copy of the built grammar, so the definition can be built again with or without other plans.
+   * Productions that are already memoized, such as the heads of left recursion, are not memoized again.
+   */
+  public PetitParser build(String name, MemoizationPlan plan) {
+    var parser = build(name);
+    var memoized = Collections.newSetFromMap(new IdentityHashMap<PetitParser, Boolean>());
+    Mirror.of(parser).stream()
+        .filter(each -> each instanceof MemoParser)
+        .forEach(each -> memoized.add(each.getChildren().get(0)));
+    return Mirror.of(parser).transform((original, copy) -> {
+      var production = nameOf(original);
+      if (production == null) {
+        return copy;
+      }
+      copies.put(copy, production);
+      return plan.contains(production) && !memoized.contains(original) ? copy.memoize() : copy;
+    });
+  }
+
+  /**
+   * Returns the name of the production defined as {@code parser}, or {@code null} if it is not a production of this definition.
+   * <p>
+   * The productions of a built grammar are the defined parsers themselves, or their copies in a grammar built with a {@link MemoizationPlan},
+   * so this names the productions of its graph, for example in a {@link petit.parser.utils.Profiler}.
+   */
+  public String nameOf(PetitParser parser) {
+    return parsers.entrySet().stream()
+        .filter(entry -> entry.getValue() == parser)
+        .map(Map.Entry::getKey)
+        .min(Comparator.naturalOrder())
+        .orElseGet(() -> copies.get(parser));
+  }
+
   private PetitParser resolve(Reference reference) {
-    var mapping = new HashMap<Reference, PetitParser>();
+    var mapping = new LinkedHashMap<Reference, PetitParser>();
     var todo = new ArrayList<PetitParser>();
     todo.add(dereference(mapping, reference));
     var seen = new HashSet<PetitParser>(todo);
@@ -107,7 +166,21 @@ public class GrammarDefinition {
         }
       }
     }
-    return mapping.get(reference);
+    for (var head : LeftRecursion.heads(mapping.values().stream().distinct().toList())) {
+      wrappers.computeIfAbsent(head, LeftRecursiveParser::new);
+    }
+    if (!wrappers.isEmpty()) {
+      for (var parent : seen) {
+        for (var child : new ArrayList<>(parent.getChildren())) {
+          var wrapper = wrappers.get(child);
+          if (wrapper != null && wrapper != parent) {
+            parent.replace(child, wrapper);
+          }
+        }
+      }
+    }
+    var root = mapping.get(reference);
+    return wrappers.getOrDefault(root, root);
   }
 
   private PetitParser dereference(Map<Reference, PetitParser> mapping, Reference reference) {
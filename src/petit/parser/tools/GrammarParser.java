@@ -1,6 +1,7 @@
 package petit.parser.tools;
 
 import petit.parser.combinators.DelegateParser;
+import petit.parser.context.MutableContext;
 
 /**
  * A helper to build a parser from a {@link GrammarDefinition}.
@@ -16,7 +17,12 @@ public class GrammarParser extends DelegateParser {
   }
 
   @Override
-  public int fastParseOn(String buffer, int position) {
+  public boolean parseOn(MutableContext context) {
+    return delegate.parseOn(context);
+  }
+
+  @Override
+  public int fastParseOn(CharSequence buffer, int position) {
     return delegate.fastParseOn(buffer, position);
   }
 
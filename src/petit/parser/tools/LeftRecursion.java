@@ -0,0 +1,152 @@
+package petit.parser.tools;
+
+import petit.parser.PetitParser;
+import petit.parser.actions.TrimmingParser;
+import petit.parser.combinators.AndParser;
+import petit.parser.combinators.ChoiceParser;
+import petit.parser.combinators.EndOfInputParser;
+import petit.parser.combinators.NotParser;
+import petit.parser.combinators.OptionalParser;
+import petit.parser.primitive.CharacterParser;
+import petit.parser.primitive.EpsilonParser;
+import petit.parser.primitive.FailureParser;
+import petit.parser.primitive.SpanParser;
+import petit.parser.primitive.StringParser;
+import petit.parser.primitive.TrieParser;
+import petit.parser.repeating.RepeatingParser;
+import petit.parser.utils.Mirror;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Internal analysis of the left-recursive productions of a grammar.
+ * <p>
+ * Only the children that a parser activates at its own position are followed: its first child, and later children only after nullable ones.
+ * Nullability is computed without FIRST sets, conservatively for unknown parsers.
+ */
+class LeftRecursion {
+
+  private final Set<PetitParser> productions = Collections.newSetFromMap(new IdentityHashMap<>());
+  private final Map<PetitParser, Boolean> nullables = new IdentityHashMap<>();
+  private final Map<PetitParser, List<PetitParser>> calls = new IdentityHashMap<>();
+
+  private LeftRecursion(List<PetitParser> productions) {
+    this.productions.addAll(productions);
+    var parsers = new ArrayList<PetitParser>();
+    for (var production : productions) {
+      for (var each : Mirror.of(production)) {
+        if (nullables.putIfAbsent(each, false) == null) {
+          parsers.add(each);
+        }
+      }
+    }
+    var changed = true;
+    while (changed) {
+      changed = false;
+      for (var each : parsers) {
+        if (!nullables.get(each) && isNullable(each)) {
+          nullables.put(each, true);
+          changed = true;
+        }
+      }
+    }
+    for (var production : productions) {
+      var called = new ArrayList<PetitParser>();
+      collect(production, called, Collections.newSetFromMap(new IdentityHashMap<>()));
+      calls.put(production, called);
+    }
+  }
+
+  /**
+   * Returns the {@code productions} that have to grow a seed, so that every cycle of left-recursive productions passes through one of them.
+   */
+  static List<PetitParser> heads(List<PetitParser> productions) {
+    var analysis = new LeftRecursion(productions);
+    var heads = new ArrayList<PetitParser>();
+    for (var production : productions) {
+      if (analysis.reaches(production, production, heads, Collections.newSetFromMap(new IdentityHashMap<>()))) {
+        heads.add(production);
+      }
+    }
+    return heads;
+  }
+
+  /**
+   * Tests if {@code parser} can succeed without consuming input, given the nullability of its children computed so far.
+   */
+  private boolean isNullable(PetitParser parser) {
+    var type = parser.getClass();
+    if (type == CharacterParser.class || type == FailureParser.class) {
+      return false;
+    } else if (type == SpanParser.class) {
+      return ((SpanParser) parser).getMin() == 0;
+    } else if (type == StringParser.class) {
+      return ((StringParser) parser).getValue().isEmpty();
+    } else if (type == TrieParser.class) {
+      return ((TrieParser) parser).getLiterals().containsKey("");
+    } else if (parser instanceof EpsilonParser || parser instanceof EndOfInputParser || parser instanceof OptionalParser
+        || parser instanceof AndParser || parser instanceof NotParser) {
+      return true;
+    } else if (parser instanceof RepeatingParser repeating && repeating.getMin() == 0) {
+      return true;
+    }
+    var children = parser.getChildren();
+    if (parser instanceof ChoiceParser) {
+      return children.stream().anyMatch(nullables::get);
+    }
+    return children.stream().allMatch(nullables::get);
+  }
+
+  /**
+   * Collects the productions that {@code parser} activates at its own position, that is before consuming any input.
+   */
+  private void collect(PetitParser parser, List<PetitParser> called, Set<PetitParser> seen) {
+    for (var child : leftChildren(parser)) {
+      if (productions.contains(child)) {
+        called.add(child);
+      } else if (seen.add(child)) {
+        collect(child, called, seen);
+      }
+    }
+  }
+
+  /**
+   * Returns the children that {@code parser} may activate at its own position.
+   */
+  private List<PetitParser> leftChildren(PetitParser parser) {
+    var children = parser.getChildren();
+    if (parser instanceof ChoiceParser) {
+      return children;
+    } else if (parser instanceof TrimmingParser) {
+      // the left trimmer is parsed before the delegate, and the right trimmer after it
+      children = List.of(children.get(1), children.get(0), children.get(2));
+    }
+    for (var i = 0; i < children.size(); i++) {
+      if (!nullables.get(children.get(i))) {
+        return children.subList(0, i + 1);
+      }
+    }
+    return children;
+  }
+
+  /**
+   * Tests if {@code target} is activated at the position of {@code production}, without passing through the {@code heads}.
+   */
+  private boolean reaches(PetitParser production, PetitParser target, List<PetitParser> heads, Set<PetitParser> seen) {
+    for (var called : calls.get(production)) {
+      if (called == target) {
+        return true;
+      }
+      if (!heads.contains(called) && seen.add(called) && reaches(called, target, heads, seen)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+}
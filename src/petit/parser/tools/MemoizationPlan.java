@@ -0,0 +1,103 @@
+package petit.parser.tools;
+
+import petit.parser.PetitParser;
+import petit.parser.utils.Backtracking;
+import petit.parser.utils.Mirror;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * The set of productions of a grammar that are worth memoizing, typically selected from a {@link Backtracking} analysis.
+ * <p>
+ * Memoizing only the productions that are re-evaluated at the same position saves most of the time of memoizing every parser,
+ * with a fraction of the memo table entries.
+ * A plan can be saved to a file, one production name per line, and applied when building a grammar with {@link GrammarDefinition#build(MemoizationPlan)}.
+ * Names of productions that do not exist in the grammar are ignored, so that a saved plan survives changes of the grammar.
+ */
+public class MemoizationPlan {
+
+  /**
+   * Returns a plan of the productions of the {@code report} with at least the given ratio of redundant evaluations, see {@link Backtracking.Entry#redundancy()}.
+   * <p>
+   * Productions whose redundant evaluations do not scan any characters, such as those that fail immediately, are not worth the memo table lookups and are skipped.
+   */
+  public static MemoizationPlan of(Backtracking.Report report, double minRedundancy) {
+    return new MemoizationPlan(report.memoizationCandidates().stream()
+        .filter(entry -> entry.wasted() > 0 && entry.redundancy() >= minRedundancy)
+        .map(Backtracking.Entry::name)
+        .toList());
+  }
+
+  /**
+   * Returns the plan saved in the file at {@code path}, see {@link #save(Path)}.
+   */
+  public static MemoizationPlan load(Path path) throws IOException {
+    return new MemoizationPlan(Files.readAllLines(path).stream()
+        .map(String::strip)
+        .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+        .toList());
+  }
+
+  private final Set<String> productions;
+
+  public MemoizationPlan(Collection<String> productions) {
+    this.productions = Collections.unmodifiableSet(new TreeSet<>(productions));
+  }
+
+  /**
+   * Returns the names of the memoized productions.
+   */
+  public Set<String> getProductions() {
+    return productions;
+  }
+
+  /**
+   * Tests if the production with the given {@code name} is memoized.
+   */
+  public boolean contains(String name) {
+    return productions.contains(name);
+  }
+
+  /**
+   * Returns a copy of the graph of {@code source} in which the parsers named after the productions of this plan are memoized,
+   * for example with {@link GrammarDefinition#nameOf(PetitParser)}.
+   */
+  public PetitParser apply(PetitParser source, Function<PetitParser, String> names) {
+    Objects.requireNonNull(names, "Undefined names");
+    return Mirror.of(source).transform((original, copy) -> {
+      var name = names.apply(original);
+      return name == null || !productions.contains(name) ? copy : copy.memoize();
+    });
+  }
+
+  /**
+   * Saves the plan to the file at {@code path}, one production name per line.
+   */
+  public void save(Path path) throws IOException {
+    Files.write(path, productions);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof MemoizationPlan plan && productions.equals(plan.productions);
+  }
+
+  @Override
+  public int hashCode() {
+    return productions.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + productions;
+  }
+
+}
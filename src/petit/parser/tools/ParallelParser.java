@@ -0,0 +1,87 @@
+package petit.parser.tools;
+
+import petit.parser.PetitParser;
+import petit.parser.context.Result;
+import petit.parser.context.Token;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Parses independent records of a single buffer in parallel, such as newline-delimited JSON or multi-document logs.
+ * <p>
+ * The buffer is first split sequentially at the matches of a separator parser, found with {@link PetitParser#fastParseOn(CharSequence, int)}.
+ * The records between the separators are then parsed in parallel on the common fork/join pool, empty records are skipped.
+ * Each record has to be consumed completely by the record parser, and its result refers to the record only: positions are relative to the start of the record.
+ * <p>
+ * The record parser is shared by all the worker threads, see {@link PetitParser} for the conditions under which this is safe.
+ * The buffer is read concurrently, so it has to support concurrent reads, as {@link String} or {@link petit.parser.context.MappedInput} do.
+ */
+public class ParallelParser {
+
+  private final PetitParser record;
+  private final PetitParser separator;
+
+  /**
+   * Constructs a parallel parser of newline separated records.
+   */
+  public ParallelParser(PetitParser record) {
+    this(record, Token.NEWLINE_PARSER);
+  }
+
+  /**
+   * Constructs a parallel parser of records separated by {@code separator}.
+   */
+  public ParallelParser(PetitParser record, PetitParser separator) {
+    this.record = Objects.requireNonNull(record, "Undefined record parser").end();
+    this.separator = Objects.requireNonNull(separator, "Undefined separator parser");
+  }
+
+  /**
+   * Returns the start and stop positions of the non-empty records of a {@code buffer}, as consecutive pairs.
+   */
+  public int[] split(CharSequence buffer) {
+    var bounds = new int[16];
+    var count = 0;
+    var start = 0;
+    var position = 0;
+    while (position < buffer.length()) {
+      var stop = separator.fastParseOn(buffer, position);
+      if (stop > position) {
+        if (position > start) {
+          if (count == bounds.length) {
+            bounds = Arrays.copyOf(bounds, 2 * count);
+          }
+          bounds[count++] = start;
+          bounds[count++] = position;
+        }
+        start = position = stop;
+      } else {
+        position++;
+      }
+    }
+    if (position > start) {
+      if (count == bounds.length) {
+        bounds = Arrays.copyOf(bounds, 2 * count);
+      }
+      bounds[count++] = start;
+      bounds[count++] = position;
+    }
+    return Arrays.copyOf(bounds, count);
+  }
+
+  /**
+   * Returns the results of the records of a {@code buffer}, parsed in parallel.
+   * <p>
+   * The stream is ordered: the results are collected in the order of the records by {@link Stream#toList()} or {@link Stream#forEachOrdered}.
+   */
+  public Stream<Result> parse(CharSequence buffer) {
+    var bounds = split(buffer);
+    return IntStream.range(0, bounds.length / 2)
+        .parallel()
+        .mapToObj(index -> record.parse(buffer.subSequence(bounds[2 * index], bounds[2 * index + 1])));
+  }
+
+}
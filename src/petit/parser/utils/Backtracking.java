@@ -0,0 +1,246 @@
+package petit.parser.utils;
+
+import petit.parser.PetitParser;
+import petit.parser.actions.ContinuationParser;
+import petit.parser.combinators.ChoiceParser;
+import petit.parser.combinators.MemoTable;
+import petit.parser.context.Context;
+import petit.parser.context.Result;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Detects the backtracking hot spots of a grammar, by running it over a corpus of inputs.
+ * <p>
+ * An evaluation of a parser is redundant if the same parser was already evaluated at the same position of the same input,
+ * the characters it scanned again are wasted. Redundant evaluations are the cost that memoization saves, see {@link PetitParser#memoize()}.
+ * For choices, the analysis also counts how often every alternative is reached and succeeds, to find choices that are worth reordering.
+ */
+public class Backtracking {
+  private Backtracking() {}
+
+  /**
+   * Returns the {@link Report} of parsing every input of the {@code corpus} with the {@code source} parser.
+   */
+  public static Report analyze(PetitParser source, Iterable<? extends CharSequence> corpus) {
+    return analyze(source, PetitParser::toString, corpus);
+  }
+
+  /**
+   * Returns the {@link Report} of parsing every input of the {@code corpus} with the {@code source} parser, with the parsers named by the provided function,
+   * for example {@link petit.parser.tools.GrammarDefinition#nameOf(PetitParser)}.
+   * Parsers without a name are named by {@link PetitParser#toString()}, and are not considered {@link Entry#production() productions}.
+   */
+  public static Report analyze(PetitParser source, Function<PetitParser, String> names, Iterable<? extends CharSequence> corpus) {
+    Objects.requireNonNull(names, "Undefined names");
+    var builders = new ArrayList<EntryBuilder>();
+    var active = new ArrayList<EntryBuilder>();
+    var parser = Mirror.of(source).transform((original, copy) -> {
+      var builder = new EntryBuilder(copy, names.apply(original));
+      builders.add(builder);
+      builder.wrapper = new ContinuationParser(copy, (continuation, context) -> {
+        var caller = active.isEmpty() ? null : active.get(active.size() - 1);
+        var alternative = caller == null ? -1 : caller.alternative(builder.wrapper);
+        active.add(builder);
+        Result result;
+        try {
+          result = continuation.apply(context);
+        } finally {
+          active.remove(active.size() - 1);
+        }
+        builder.evaluated(context.getPosition(), result);
+        if (alternative >= 0) {
+          caller.reached(alternative, result.isSuccess());
+        }
+        return result;
+      });
+      return builder.wrapper;
+    });
+    var inputs = 0;
+    for (var input : corpus) {
+      builders.forEach(EntryBuilder::reset);
+      var session = MemoTable.session();
+      try {
+        parser.parseOn(new Context(input, 0));
+      } finally {
+        session.close();
+      }
+      inputs++;
+    }
+    return new Report(inputs, builders.stream().map(EntryBuilder::build).toList());
+  }
+
+  /**
+   * The backtracking of a parser over the corpus.
+   *
+   * @param parser the analyzed parser
+   * @param name the name of the parser
+   * @param production whether the parser is named, that is a production
+   * @param evaluations the number of evaluations
+   * @param redundant the number of evaluations at a position where the parser was already evaluated
+   * @param wasted the number of characters scanned by the redundant evaluations, up to their success or failure
+   * @param failures the number of evaluations that failed
+   * @param reached for a choice, the number of times each alternative was reached, otherwise empty
+   * @param succeeded for a choice, the number of times each alternative succeeded, otherwise empty
+   */
+  public record Entry(PetitParser parser, String name, boolean production, long evaluations, long redundant, long wasted, long failures,
+      long[] reached, long[] succeeded) {
+
+    /**
+     * Returns the ratio of redundant evaluations, {@code 0} if the parser was not evaluated.
+     */
+    public double redundancy() {
+      return evaluations == 0 ? 0 : (double) redundant / evaluations;
+    }
+
+    @Override
+    public String toString() {
+      return evaluations + "\t" + redundant + "\t" + wasted + "\t" + failures + "\t" + name;
+    }
+  }
+
+  /**
+   * The backtracking of all parsers over the corpus.
+   */
+  public static class Report {
+
+    private final int inputs;
+    private final List<Entry> entries;
+
+    private Report(int inputs, List<Entry> entries) {
+      this.inputs = inputs;
+      this.entries = entries;
+    }
+
+    /**
+     * Returns the number of analyzed inputs.
+     */
+    public int getInputs() {
+      return inputs;
+    }
+
+    /**
+     * Returns the entries of all parsers.
+     */
+    public List<Entry> getEntries() {
+      return entries;
+    }
+
+    /**
+     * Returns the entry of the production with the given {@code name}, or {@code null}.
+     */
+    public Entry getEntry(String name) {
+      return entries.stream().filter(entry -> entry.production() && entry.name().equals(name)).findFirst().orElse(null);
+    }
+
+    /**
+     * Returns the productions with redundant evaluations, those that waste the most characters first.
+     * These are the productions worth memoizing.
+     */
+    public List<Entry> memoizationCandidates() {
+      return entries.stream()
+          .filter(entry -> entry.production() && entry.redundant() > 0)
+          .sorted(Comparator.comparingLong(Entry::wasted).thenComparingLong(Entry::redundant).reversed())
+          .toList();
+    }
+
+    /**
+     * Returns human readable recommendations: the productions to memoize,
+     * and the choices in which an alternative succeeds more often than an earlier one.
+     * <p>
+     * Reordering the alternatives of a choice only preserves its language if they do not accept common prefixes.
+     */
+    public List<String> recommendations() {
+      var recommendations = new ArrayList<String>();
+      for (var entry : memoizationCandidates()) {
+        recommendations.add("memoize " + entry.name() + ": " + entry.redundant() + " of " + entry.evaluations()
+            + " evaluations are redundant, wasting " + entry.wasted() + " characters");
+      }
+      for (var entry : entries) {
+        var succeeded = entry.succeeded();
+        for (var i = 1; i < succeeded.length; i++) {
+          for (var j = 0; j < i; j++) {
+            if (succeeded[i] > succeeded[j]) {
+              recommendations.add("reorder " + entry.name() + ": alternative " + i + " succeeds " + succeeded[i]
+                  + " times, more often than alternative " + j + " (" + succeeded[j] + " times)");
+              break;
+            }
+          }
+        }
+      }
+      return recommendations;
+    }
+  }
+
+  /**
+   * Internal builder of an entry.
+   */
+  private static class EntryBuilder {
+
+    private final PetitParser parser;
+    private final String name;
+    private final long[] reached;
+    private final long[] succeeded;
+    private final BitSet positions = new BitSet();
+    private PetitParser wrapper;
+    private long evaluations;
+    private long redundant;
+    private long wasted;
+    private long failures;
+
+    private EntryBuilder(PetitParser parser, String name) {
+      this.parser = parser;
+      this.name = name;
+      var alternatives = parser instanceof ChoiceParser ? parser.getChildren().size() : 0;
+      this.reached = new long[alternatives];
+      this.succeeded = new long[alternatives];
+    }
+
+    private void reset() {
+      positions.clear();
+    }
+
+    private int alternative(PetitParser child) {
+      if (reached.length == 0) {
+        return -1;
+      }
+      var children = parser.getChildren();
+      for (var i = 0; i < children.size(); i++) {
+        if (children.get(i) == child) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    private void reached(int alternative, boolean success) {
+      reached[alternative]++;
+      if (success) {
+        succeeded[alternative]++;
+      }
+    }
+
+    private void evaluated(int position, Result result) {
+      evaluations++;
+      if (result.isFailure()) {
+        failures++;
+      }
+      if (positions.get(position)) {
+        redundant++;
+        wasted += Math.max(0, result.getPosition() - position);
+      } else {
+        positions.set(position);
+      }
+    }
+
+    private Entry build() {
+      return new Entry(parser, name == null ? parser.toString() : name, name != null, evaluations, redundant, wasted, failures, reached, succeeded);
+    }
+  }
+
+}
@@ -0,0 +1,424 @@
+package petit.parser.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Internal writer of class files, supporting just what the {@link ParserCompiler} generates.
+ * <p>
+ * Classes are written in version 49 of the class file format, so that the verifier infers the types of the stack frames
+ * and no {@code StackMapTable} has to be computed.
+ */
+class Bytecode {
+
+  static final int ACC_PUBLIC = 0x0001;
+  static final int ACC_PRIVATE = 0x0002;
+  static final int ACC_FINAL = 0x0010;
+  static final int ACC_SUPER = 0x0020;
+
+  static final int ICONST_0 = 0x03;
+  static final int BIPUSH = 0x10;
+  static final int SIPUSH = 0x11;
+  static final int LDC_W = 0x13;
+  static final int ILOAD = 0x15;
+  static final int ALOAD = 0x19;
+  static final int AALOAD = 0x32;
+  static final int ISTORE = 0x36;
+  static final int ASTORE = 0x3a;
+  static final int DUP = 0x59;
+  static final int IINC = 0x84;
+  static final int IFEQ = 0x99;
+  static final int IFNE = 0x9a;
+  static final int IFLT = 0x9b;
+  static final int IFGE = 0x9c;
+  static final int IF_ICMPLT = 0xa1;
+  static final int IF_ICMPGE = 0xa2;
+  static final int GOTO = 0xa7;
+  static final int IRETURN = 0xac;
+  static final int ARETURN = 0xb0;
+  static final int RETURN = 0xb1;
+  static final int GETFIELD = 0xb4;
+  static final int PUTFIELD = 0xb5;
+  static final int INVOKEVIRTUAL = 0xb6;
+  static final int INVOKESPECIAL = 0xb7;
+  static final int INVOKEINTERFACE = 0xb9;
+  static final int NEW = 0xbb;
+  static final int CHECKCAST = 0xc0;
+  static final int ACONST_NULL = 0x01;
+
+  private static final int MAX_STACK = 16;
+
+  /**
+   * The maximal number of entries of the constant pool, fields and methods of a class, and the maximal length of the code of a method.
+   */
+  private static final int MAX_COUNT = 0xffff;
+
+  private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+  private final DataOutputStream poolOutput = new DataOutputStream(pool);
+  private final Map<String, Integer> entries = new HashMap<>();
+  private int poolCount = 1;
+
+  private final String name;
+  private final int superClass;
+  private final int[] interfaces;
+  private final List<byte[]> fields = new ArrayList<>();
+  private final List<Code> methods = new ArrayList<>();
+
+  /**
+   * Starts a final class with the internal {@code name}, extending {@code superName} and implementing {@code interfaceNames}.
+   */
+  Bytecode(String name, String superName, String... interfaceNames) {
+    this.name = name;
+    this.superClass = classRef(superName);
+    this.interfaces = new int[interfaceNames.length];
+    for (var i = 0; i < interfaceNames.length; i++) {
+      interfaces[i] = classRef(interfaceNames[i]);
+    }
+  }
+
+  private int entry(String key, Writer writer) {
+    var index = entries.get(key);
+    if (index == null) {
+      try {
+        writer.write(poolOutput);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      index = poolCount++;
+      entries.put(key, index);
+    }
+    return index;
+  }
+
+  private interface Writer {
+    void write(DataOutputStream output) throws IOException;
+  }
+
+  int utf8(String value) {
+    return entry("U" + value, output -> {
+      output.writeByte(1);
+      output.writeUTF(value);
+    });
+  }
+
+  int classRef(String internalName) {
+    var index = utf8(internalName);
+    return entry("C" + internalName, output -> {
+      output.writeByte(7);
+      output.writeShort(index);
+    });
+  }
+
+  int integer(int value) {
+    return entry("I" + value, output -> {
+      output.writeByte(3);
+      output.writeInt(value);
+    });
+  }
+
+  private int nameAndType(String name, String descriptor) {
+    var nameIndex = utf8(name);
+    var descriptorIndex = utf8(descriptor);
+    return entry("N" + name + ":" + descriptor, output -> {
+      output.writeByte(12);
+      output.writeShort(nameIndex);
+      output.writeShort(descriptorIndex);
+    });
+  }
+
+  private int memberRef(int tag, String owner, String name, String descriptor) {
+    var ownerIndex = classRef(owner);
+    var nameAndTypeIndex = nameAndType(name, descriptor);
+    return entry(tag + owner + "." + name + ":" + descriptor, output -> {
+      output.writeByte(tag);
+      output.writeShort(ownerIndex);
+      output.writeShort(nameAndTypeIndex);
+    });
+  }
+
+  int fieldRef(String owner, String name, String descriptor) {
+    return memberRef(9, owner, name, descriptor);
+  }
+
+  int methodRef(String owner, String name, String descriptor) {
+    return memberRef(10, owner, name, descriptor);
+  }
+
+  int interfaceMethodRef(String owner, String name, String descriptor) {
+    return memberRef(11, owner, name, descriptor);
+  }
+
+  /**
+   * Returns the internal name of the class being written.
+   */
+  String getName() {
+    return name;
+  }
+
+  /**
+   * Adds a field.
+   */
+  void field(int access, String name, String descriptor) {
+    var output = new ByteArrayOutputStream();
+    try (var data = new DataOutputStream(output)) {
+      data.writeShort(access);
+      data.writeShort(utf8(name));
+      data.writeShort(utf8(descriptor));
+      data.writeShort(0);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    fields.add(output.toByteArray());
+  }
+
+  /**
+   * Adds a method, and returns the writer of its code.
+   */
+  Code method(int access, String name, String descriptor, int maxLocals) {
+    var code = new Code(access, utf8(name), utf8(descriptor), maxLocals);
+    methods.add(code);
+    return code;
+  }
+
+  /**
+   * Tests if the class fits the limits of the class file format, so that it can be written by {@link #toByteArray()}.
+   */
+  boolean isWithinLimits() {
+    if (poolCount + 3 > MAX_COUNT || fields.size() > MAX_COUNT || methods.size() > MAX_COUNT) {
+      return false;
+    }
+    for (var each : methods) {
+      if (!each.isWithinLimits()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the class file.
+   */
+  byte[] toByteArray() {
+    var codeAttribute = utf8("Code");
+    var methods = new ArrayList<byte[]>();
+    for (var code : this.methods) {
+      methods.add(code.toByteArray(codeAttribute));
+    }
+    var thisClass = classRef(name);
+    var output = new ByteArrayOutputStream();
+    try (var data = new DataOutputStream(output)) {
+      data.writeInt(0xcafebabe);
+      data.writeShort(0);
+      data.writeShort(49);
+      data.writeShort(poolCount);
+      data.write(pool.toByteArray());
+      data.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+      data.writeShort(thisClass);
+      data.writeShort(superClass);
+      data.writeShort(interfaces.length);
+      for (var each : interfaces) {
+        data.writeShort(each);
+      }
+      data.writeShort(fields.size());
+      for (var each : fields) {
+        data.write(each);
+      }
+      data.writeShort(methods.size());
+      for (var each : methods) {
+        data.write(each);
+      }
+      data.writeShort(0);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return output.toByteArray();
+  }
+
+  /**
+   * A position in the code of a method, that is the target of jumps.
+   */
+  static class Label {
+
+    private int offset = -1;
+    private final List<Integer> jumps = new ArrayList<>();
+  }
+
+  /**
+   * Internal writer of the instructions of a method.
+   */
+  class Code {
+
+    private final int access;
+    private final int name;
+    private final int descriptor;
+    private final int maxLocals;
+    private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+    private final List<Label> labels = new ArrayList<>();
+
+    private Code(int access, int name, int descriptor, int maxLocals) {
+      this.access = access;
+      this.name = name;
+      this.descriptor = descriptor;
+      this.maxLocals = maxLocals;
+    }
+
+    Code op(int opcode) {
+      code.write(opcode);
+      return this;
+    }
+
+    private Code op(int opcode, int index) {
+      code.write(opcode);
+      code.write(index >>> 8);
+      code.write(index);
+      return this;
+    }
+
+    private Code local(int opcode, int index) {
+      code.write(opcode);
+      code.write(index);
+      return this;
+    }
+
+    Code iload(int index) {
+      return local(ILOAD, index);
+    }
+
+    Code istore(int index) {
+      return local(ISTORE, index);
+    }
+
+    Code aload(int index) {
+      return local(ALOAD, index);
+    }
+
+    Code astore(int index) {
+      return local(ASTORE, index);
+    }
+
+    Code iinc(int index, int increment) {
+      code.write(IINC);
+      code.write(index);
+      code.write(increment);
+      return this;
+    }
+
+    Code iconst(int value) {
+      if (-1 <= value && value <= 5) {
+        return op(ICONST_0 + value);
+      } else if (Byte.MIN_VALUE <= value && value <= Byte.MAX_VALUE) {
+        return local(BIPUSH, value & 0xff);
+      } else if (Short.MIN_VALUE <= value && value <= Short.MAX_VALUE) {
+        return op(SIPUSH, value & 0xffff);
+      }
+      return op(LDC_W, integer(value));
+    }
+
+    Code getfield(String owner, String name, String descriptor) {
+      return op(GETFIELD, fieldRef(owner, name, descriptor));
+    }
+
+    Code putfield(String owner, String name, String descriptor) {
+      return op(PUTFIELD, fieldRef(owner, name, descriptor));
+    }
+
+    Code invokevirtual(String owner, String name, String descriptor) {
+      return op(INVOKEVIRTUAL, methodRef(owner, name, descriptor));
+    }
+
+    Code invokespecial(String owner, String name, String descriptor) {
+      return op(INVOKESPECIAL, methodRef(owner, name, descriptor));
+    }
+
+    Code invokeinterface(String owner, String name, String descriptor, int arguments) {
+      op(INVOKEINTERFACE, interfaceMethodRef(owner, name, descriptor));
+      code.write(arguments + 1);
+      code.write(0);
+      return this;
+    }
+
+    Code newInstance(String type) {
+      return op(NEW, classRef(type));
+    }
+
+    Code checkcast(String type) {
+      return op(CHECKCAST, classRef(type));
+    }
+
+    Label label() {
+      var label = new Label();
+      labels.add(label);
+      return label;
+    }
+
+    Code mark(Label label) {
+      label.offset = code.size();
+      return this;
+    }
+
+    Code jump(int opcode, Label label) {
+      label.jumps.add(code.size());
+      return op(opcode, 0);
+    }
+
+    /**
+     * Tests if the code fits the limits of a method, and all its jumps are in range.
+     */
+    private boolean isWithinLimits() {
+      if (code.size() > MAX_COUNT) {
+        return false;
+      }
+      for (var label : labels) {
+        for (var jump : label.jumps) {
+          var offset = label.offset - jump;
+          if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) {
+            return false;
+          }
+        }
+      }
+      return true;
+    }
+
+    private byte[] toByteArray(int codeAttribute) {
+      var bytes = code.toByteArray();
+      for (var label : labels) {
+        if (label.offset < 0 && !label.jumps.isEmpty()) {
+          throw new IllegalStateException("Unmarked label");
+        }
+        for (var jump : label.jumps) {
+          var offset = label.offset - jump;
+          if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) {
+            throw new IllegalStateException("Jump too far: " + offset);
+          }
+          bytes[jump + 1] = (byte) (offset >>> 8);
+          bytes[jump + 2] = (byte) offset;
+        }
+      }
+      var output = new ByteArrayOutputStream();
+      try (var data = new DataOutputStream(output)) {
+        data.writeShort(access);
+        data.writeShort(name);
+        data.writeShort(descriptor);
+        data.writeShort(1);
+        data.writeShort(codeAttribute);
+        data.writeInt(12 + bytes.length);
+        data.writeShort(MAX_STACK);
+        data.writeShort(maxLocals);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+        data.writeShort(0);
+        data.writeShort(0);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      return output.toByteArray();
+    }
+  }
+
+}
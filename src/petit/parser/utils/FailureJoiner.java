@@ -58,7 +58,7 @@ public interface FailureJoiner extends BiFunction<Failure, Failure, Failure> {
     public Failure apply(Failure first, Failure second) {
       return first.getPosition() > second.getPosition() ? first
            : first.getPosition() < second.getPosition() ? second
-           : first.failure(first.getMessage() + messageJoiner + second.getMessage());
+           : first.failure(() -> first.getMessage() + messageJoiner + second.getMessage());
     }
   }
 
@@ -0,0 +1,285 @@
+package petit.parser.utils;
+
+import petit.parser.PetitParser;
+import petit.parser.actions.ActionParser;
+import petit.parser.actions.FlattenParser;
+import petit.parser.actions.TokenParser;
+import petit.parser.actions.TrimmingParser;
+import petit.parser.combinators.AndParser;
+import petit.parser.combinators.ChoiceParser;
+import petit.parser.combinators.DelegateParser;
+import petit.parser.combinators.DispatchChoiceParser;
+import petit.parser.combinators.EndOfInputParser;
+import petit.parser.combinators.LeftRecursiveParser;
+import petit.parser.combinators.MemoParser;
+import petit.parser.combinators.NotParser;
+import petit.parser.combinators.OptionalParser;
+import petit.parser.combinators.SequenceParser;
+import petit.parser.combinators.SettableParser;
+import petit.parser.primitive.CharacterParser;
+import petit.parser.primitive.CharacterPredicate;
+import petit.parser.primitive.EpsilonParser;
+import petit.parser.primitive.FailureParser;
+import petit.parser.primitive.SpanParser;
+import petit.parser.primitive.StringParser;
+import petit.parser.primitive.TrieParser;
+import petit.parser.repeating.GreedyRepeatingParser;
+import petit.parser.repeating.LazyRepeatingParser;
+import petit.parser.repeating.PossessiveRepeatingParser;
+import petit.parser.repeating.RepeatingParser;
+import petit.parser.tools.GrammarParser;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * The characters a parser can start with (its FIRST set), and whether it can succeed without consuming input.
+ * <p>
+ * If a parser succeeds at a position, then either the character at that position is in its FIRST set,
+ * or the parser consumed no input and is {@link #isNullable() nullable}.
+ * The analysis is conservative: parsers it does not know, including subclasses of the known parsers, can start with any character and are nullable.
+ */
+public class FirstSet {
+
+  private static final int SIZE = Character.MAX_VALUE + 1;
+
+  /**
+   * The FIRST set of a parser that can start with any character, or succeed without consuming input.
+   */
+  public static final FirstSet ANY = new FirstSet(range(0, SIZE), true);
+
+  /**
+   * The FIRST set of a parser that never succeeds.
+   */
+  public static final FirstSet NONE = new FirstSet(new BitSet(), false);
+
+  /**
+   * The FIRST set of a parser that always succeeds without consuming input.
+   */
+  public static final FirstSet EMPTY = new FirstSet(new BitSet(), true);
+
+  /**
+   * Returns the FIRST set of a {@code parser}.
+   */
+  public static FirstSet of(PetitParser parser) {
+    return analyze(parser, new IdentityHashMap<>()).get(parser);
+  }
+
+  /**
+   * Computes the FIRST sets of a {@code parser} and all its reachable descendants, and adds them to {@code results}.
+   * <p>
+   * Parsers already in {@code results} are not analyzed again, so that a map can be shared to analyze several parsers of the same graph.
+   */
+  public static Map<PetitParser, FirstSet> analyze(PetitParser parser, Map<PetitParser, FirstSet> results) {
+    Objects.requireNonNull(results, "Undefined results");
+    var pending = new ArrayList<PetitParser>();
+    for (var each : Mirror.of(parser)) {
+      if (!results.containsKey(each)) {
+        pending.add(each);
+      }
+    }
+    // Visit the descendants first, so that the fixpoint is reached in few iterations:
+    Collections.reverse(pending);
+    var current = new IdentityHashMap<PetitParser, FirstSet>();
+    var recursive = new ArrayList<PetitParser>();
+    for (var each : pending) {
+      var first = leaf(each);
+      if (first == null) {
+        current.put(each, NONE);
+        recursive.add(each);
+      } else {
+        current.put(each, first);
+      }
+    }
+    var changed = true;
+    while (changed) {
+      changed = false;
+      for (var each : recursive) {
+        var first = compose(each, child -> results.containsKey(child) ? results.get(child) : current.get(child));
+        if (!first.equals(current.get(each))) {
+          current.put(each, first);
+          changed = true;
+        }
+      }
+    }
+    results.putAll(current);
+    return results;
+  }
+
+  /**
+   * Returns the FIRST set of a parser that does not depend on its children, or {@code null}.
+   */
+  private static FirstSet leaf(PetitParser parser) {
+    var type = parser.getClass();
+    if (type == CharacterParser.class) {
+      return of(((CharacterParser) parser).getMatcher(), ((CharacterParser) parser).getCompiledMatcher(), false);
+    } else if (type == SpanParser.class) {
+      return of(((SpanParser) parser).getMatcher(), ((SpanParser) parser).getCompiledMatcher(), ((SpanParser) parser).getMin() == 0);
+    } else if (type == StringParser.class) {
+      return of((StringParser) parser);
+    } else if (type == TrieParser.class) {
+      var characters = new BitSet(SIZE);
+      var nullable = false;
+      for (var literal : ((TrieParser) parser).getLiterals().keySet()) {
+        if (literal.isEmpty()) {
+          nullable = true;
+        } else {
+          characters.set(literal.charAt(0));
+        }
+      }
+      return new FirstSet(characters, nullable);
+    } else if (type == EpsilonParser.class || type == EndOfInputParser.class || type == NotParser.class) {
+      return EMPTY;
+    } else if (type == FailureParser.class) {
+      return NONE;
+    } else if (isComposite(type)) {
+      return null;
+    }
+    return ANY;
+  }
+
+  /**
+   * Returns the FIRST set of the characters of a {@code matcher}: single characters directly, any other from the pages of its {@code compiled} predicate.
+   */
+  private static FirstSet of(CharacterPredicate matcher, CharacterPredicate.CompiledCharacterPredicate compiled, boolean nullable) {
+    if (matcher instanceof CharacterPredicate.SingleCharacterPredicate single) {
+      return new FirstSet(range(single.character(), single.character() + 1), nullable);
+    }
+    return new FirstSet(compiled.toBitSet(), nullable);
+  }
+
+  private static FirstSet of(StringParser parser) {
+    var value = parser.getValue();
+    if (value.isEmpty()) {
+      return EMPTY;
+    }
+    var first = value.charAt(0);
+    if (!parser.isIgnoringCase()) {
+      return new FirstSet(range(first, first + 1), false);
+    }
+    // Case insensitive comparisons may fold surrogate pairs as code points:
+    var characters = range(Character.MIN_SURROGATE, Character.MAX_SURROGATE + 1);
+    var expected = String.valueOf(first);
+    for (var c = 0; c < SIZE; c++) {
+      if (!characters.get(c) && expected.equalsIgnoreCase(String.valueOf((char) c))) {
+        characters.set(c);
+      }
+    }
+    return new FirstSet(characters, false);
+  }
+
+  private static final Set<Class<?>> COMPOSITES = Set.of(
+      SequenceParser.class, ChoiceParser.class, DispatchChoiceParser.class, OptionalParser.class, AndParser.class, TrimmingParser.class,
+      PossessiveRepeatingParser.class, GreedyRepeatingParser.class, LazyRepeatingParser.class,
+      ActionParser.class, FlattenParser.class, TokenParser.class, MemoParser.class, LeftRecursiveParser.class,
+      SettableParser.class, DelegateParser.class, GrammarParser.class, Metrics.MeteredParser.class);
+
+  private static boolean isComposite(Class<?> type) {
+    return COMPOSITES.contains(type);
+  }
+
+  /**
+   * Returns the FIRST set of a parser that depends on the FIRST sets of its children.
+   */
+  private static FirstSet compose(PetitParser parser, Function<PetitParser, FirstSet> lookup) {
+    var children = parser.getChildren();
+    if (parser instanceof SequenceParser) {
+      var characters = new BitSet();
+      for (var child : children) {
+        var first = lookup.apply(child);
+        characters.or(first.characters);
+        if (!first.nullable) {
+          return new FirstSet(characters, false);
+        }
+      }
+      return new FirstSet(characters, true);
+    } else if (parser instanceof ChoiceParser) {
+      var characters = new BitSet();
+      var nullable = false;
+      for (var child : children) {
+        var first = lookup.apply(child);
+        characters.or(first.characters);
+        nullable |= first.nullable;
+      }
+      return new FirstSet(characters, nullable);
+    } else if (parser instanceof OptionalParser) {
+      return new FirstSet(lookup.apply(children.get(0)).characters, true);
+    } else if (parser instanceof TrimmingParser) {
+      var delegate = lookup.apply(children.get(0));
+      var characters = (BitSet) lookup.apply(children.get(1)).characters.clone();
+      characters.or(delegate.characters);
+      if (delegate.nullable) {
+        characters.or(lookup.apply(children.get(2)).characters);
+      }
+      return new FirstSet(characters, delegate.nullable);
+    } else if (parser instanceof RepeatingParser) {
+      var delegate = lookup.apply(children.get(0));
+      return new FirstSet(delegate.characters, delegate.nullable || ((RepeatingParser) parser).getMin() == 0);
+    }
+    return lookup.apply(children.get(0));
+  }
+
+  private static BitSet range(int start, int stop) {
+    var characters = new BitSet(SIZE);
+    characters.set(start, stop);
+    return characters;
+  }
+
+  private final BitSet characters;
+  private final boolean nullable;
+
+  private FirstSet(BitSet characters, boolean nullable) {
+    this.characters = characters;
+    this.nullable = nullable;
+  }
+
+  /**
+   * Returns {@code true} if the parser can start with {@code character}.
+   */
+  public boolean contains(char character) {
+    return characters.get(character);
+  }
+
+  /**
+   * Returns {@code true} if the parser can succeed without consuming input.
+   */
+  public boolean isNullable() {
+    return nullable;
+  }
+
+  /**
+   * Returns {@code true} if the parser can start with any character.
+   */
+  public boolean isUnrestricted() {
+    return characters.cardinality() == SIZE;
+  }
+
+  /**
+   * Returns the characters the parser can start with.
+   */
+  public BitSet getCharacters() {
+    return (BitSet) characters.clone();
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return this == other || other instanceof FirstSet first && nullable == first.nullable && characters.equals(first.characters);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(characters, nullable);
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "[" + characters.cardinality() + " characters" + (nullable ? ", nullable" : "") + "]";
+  }
+
+}
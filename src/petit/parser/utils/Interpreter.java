@@ -0,0 +1,456 @@
+package petit.parser.utils;
+
+import petit.parser.PetitParser;
+import petit.parser.actions.ActionParser;
+import petit.parser.actions.FlattenParser;
+import petit.parser.actions.TokenParser;
+import petit.parser.actions.TrimmingParser;
+import petit.parser.combinators.AndParser;
+import petit.parser.combinators.ChoiceParser;
+import petit.parser.combinators.DelegateParser;
+import petit.parser.combinators.DispatchChoiceParser;
+import petit.parser.combinators.FrozenParser;
+import petit.parser.combinators.NotParser;
+import petit.parser.combinators.OptionalParser;
+import petit.parser.combinators.SequenceParser;
+import petit.parser.combinators.SettableParser;
+import petit.parser.context.Context;
+import petit.parser.context.Failure;
+import petit.parser.context.MutableContext;
+import petit.parser.context.Result;
+import petit.parser.context.Token;
+import petit.parser.repeating.GreedyRepeatingParser;
+import petit.parser.repeating.LazyRepeatingParser;
+import petit.parser.repeating.PossessiveRepeatingParser;
+import petit.parser.repeating.RepeatingParser;
+import petit.parser.tools.GrammarParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Runs parser graphs with an explicit stack on the heap, instead of the call stack of the JVM.
+ * <p>
+ * Sequences, choices, optionals, lookaheads, repetitions, actions, flattens, tokens and trimmings are interpreted with a frame per activation,
+ * so that the nesting depth of the input is only limited by memory, or by the maximum depth of the interpreted parser.
+ * Delegates, settables, grammar and frozen parsers are resolved away.
+ * All other parsers, such as the primitives and the memoizing parsers, are called with {@link PetitParser#parseOn(Context)},
+ * so recursion through them still uses the call stack.
+ * <p>
+ * The interpreter produces the same results as {@link PetitParser#parseOn(Context)}.
+ */
+public class Interpreter {
+  private Interpreter() {}
+
+  /**
+   * The maximum depth of an interpreted parser without limit.
+   */
+  public static final int UNBOUNDED = -1;
+
+  /**
+   * Returns a parser that behaves like the provided {@code parser}, but is interpreted without limit on the depth.
+   */
+  public static InterpretedParser interpret(PetitParser parser) {
+    return interpret(parser, UNBOUNDED);
+  }
+
+  /**
+   * Returns a parser that behaves like the provided {@code parser}, but is interpreted with at most {@code maxDepth} active frames.
+   * A parse that goes deeper fails as a whole, at the position where the limit was exceeded.
+   */
+  public static InterpretedParser interpret(PetitParser parser, int maxDepth) {
+    if (maxDepth != UNBOUNDED && maxDepth < 1) {
+      throw new IllegalArgumentException("Invalid maximum depth: " + maxDepth);
+    }
+    return new InterpretedParser(parser, maxDepth);
+  }
+
+  /**
+   * A parser that interprets its delegate.
+   */
+  public static class InterpretedParser extends DelegateParser {
+
+    private final int maxDepth;
+
+    private InterpretedParser(PetitParser delegate, int maxDepth) {
+      super(delegate);
+      this.maxDepth = maxDepth;
+    }
+
+    @Override
+    public Result parseOn(Context context) {
+      return run(delegate, context, maxDepth);
+    }
+
+    @Override
+    public boolean parseOn(MutableContext context) {
+      return context.set(run(delegate, new Context(context.getBuffer(), context.getPosition()), maxDepth));
+    }
+
+    @Override
+    public int fastParseOn(CharSequence buffer, int position) {
+      var result = run(delegate, new Context(buffer, position), maxDepth);
+      return result.isSuccess() ? result.getPosition() : -1;
+    }
+
+    /**
+     * Returns the maximum number of active frames, or {@link #UNBOUNDED}.
+     */
+    public int getMaxDepth() {
+      return maxDepth;
+    }
+
+    @Override
+    protected boolean hasEqualProperties(PetitParser other) {
+      return super.hasEqualProperties(other) && maxDepth == ((InterpretedParser) other).maxDepth;
+    }
+
+    @Override
+    protected int hashProperties() {
+      return 31 * super.hashProperties() + maxDepth;
+    }
+
+    @Override
+    public InterpretedParser copy() {
+      return new InterpretedParser(delegate, maxDepth);
+    }
+
+    @Override
+    public String toString() {
+      return super.toString() + "[" + maxDepth + "]";
+    }
+  }
+
+  /**
+   * The delegating parsers that are resolved away, besides the subclasses of {@link GrammarParser} such as the bundled grammars.
+   */
+  private static final Set<Class<?>> TRANSPARENT = Set.of(
+      DelegateParser.class, SettableParser.class, FrozenParser.class);
+
+  private static Result run(PetitParser root, Context context, int maxDepth) {
+    var stack = new ArrayList<Frame>();
+    var parser = root;
+    var current = context;
+    Result result = null;
+    for (;;) {
+      if (parser != null) {
+        while (TRANSPARENT.contains(parser.getClass()) || parser instanceof GrammarParser) {
+          parser = parser.getChildren().get(0);
+        }
+        var frame = frame(parser, current);
+        if (frame == null) {
+          result = parser.parseOn(current);
+        } else if (maxDepth != UNBOUNDED && stack.size() >= maxDepth) {
+          return current.failure("maximum depth of " + maxDepth + " exceeded");
+        } else {
+          stack.add(frame);
+          result = null;
+        }
+        parser = null;
+      }
+      if (stack.isEmpty()) {
+        return result;
+      }
+      var top = stack.get(stack.size() - 1);
+      result = top.resume(result);
+      if (result == null) {
+        parser = top.next;
+        current = top.nextContext;
+      } else {
+        stack.remove(stack.size() - 1);
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Frame frame(PetitParser parser, Context context) {
+    var type = parser.getClass();
+    var children = parser.getChildren();
+    if (type == SequenceParser.class) {
+      return new SequenceFrame(context, children);
+    } else if (type == ChoiceParser.class || type == DispatchChoiceParser.class) {
+      return new ChoiceFrame(context, children, ((ChoiceParser) parser).getFailureJoiner());
+    } else if (type == OptionalParser.class) {
+      var otherwise = ((OptionalParser) parser).getOtherwise();
+      return new DelegateFrame(context, children.get(0), result -> result.isSuccess() ? result : context.success(otherwise));
+    } else if (type == AndParser.class) {
+      return new DelegateFrame(context, children.get(0), result -> result.isSuccess() ? context.success(result.get()) : result);
+    } else if (type == NotParser.class) {
+      var message = ((NotParser) parser).getMessage();
+      return new DelegateFrame(context, children.get(0), result -> result.isFailure() ? context.success(null) : context.failure(message));
+    } else if (type == ActionParser.class) {
+      var function = ((ActionParser<Object, Object>) parser).getFunction();
+      return new DelegateFrame(context, children.get(0), result -> result.isSuccess() ? result.success(function.apply(result.get())) : result);
+    } else if (type == FlattenParser.class) {
+      var message = ((FlattenParser) parser).getMessage();
+      return new DelegateFrame(context, children.get(0), result -> {
+        if (result.isFailure()) {
+          return message == null ? result : context.failure(message);
+        }
+        var flattened = context.getBuffer().subSequence(context.getPosition(), result.getPosition()).toString();
+        return context.success(flattened, result.getPosition());
+      });
+    } else if (type == TokenParser.class) {
+      return new DelegateFrame(context, children.get(0), result -> result.isSuccess()
+          ? result.success(new Token(context.getBuffer(), context.getPosition(), result.getPosition(), result.get()))
+          : result);
+    } else if (type == TrimmingParser.class) {
+      var buffer = context.getBuffer();
+      var before = consume(children.get(1), buffer, context.getPosition());
+      var start = before == context.getPosition() ? context : new Context(buffer, before);
+      return new DelegateFrame(start, children.get(0), result -> {
+        if (result.isFailure()) {
+          return result;
+        }
+        var after = consume(children.get(2), buffer, result.getPosition());
+        return after == result.getPosition() ? result : result.success(result.get(), after);
+      });
+    } else if (type == PossessiveRepeatingParser.class) {
+      return new PossessiveFrame(context, children.get(0), (RepeatingParser) parser);
+    } else if (type == GreedyRepeatingParser.class) {
+      return new GreedyFrame(context, children.get(0), children.get(1), (RepeatingParser) parser);
+    } else if (type == LazyRepeatingParser.class) {
+      return new LazyFrame(context, children.get(0), children.get(1), (RepeatingParser) parser);
+    }
+    return null;
+  }
+
+  private static int consume(PetitParser parser, CharSequence buffer, int position) {
+    for (;;) {
+      var result = parser.fastParseOn(buffer, position);
+      if (result < 0) {
+        return position;
+      }
+      position = result;
+    }
+  }
+
+  /**
+   * The state of an active parser.
+   */
+  private abstract static class Frame {
+
+    final Context context;
+    PetitParser next;
+    Context nextContext;
+
+    Frame(Context context) {
+      this.context = context;
+    }
+
+    /**
+     * Resumes with the {@code result} of the last activated child, or {@code null} on entry.
+     * Returns the result of the frame, or {@code null} after activating the next child with {@link #call(PetitParser, Context)}.
+     */
+    abstract Result resume(Result result);
+
+    Result call(PetitParser parser, Context context) {
+      next = parser;
+      nextContext = context;
+      return null;
+    }
+  }
+
+  private static class DelegateFrame extends Frame {
+
+    private final PetitParser delegate;
+    private final Function<Result, Result> complete;
+
+    DelegateFrame(Context context, PetitParser delegate, Function<Result, Result> complete) {
+      super(context);
+      this.delegate = delegate;
+      this.complete = complete;
+    }
+
+    @Override
+    Result resume(Result result) {
+      return result == null ? call(delegate, context) : complete.apply(result);
+    }
+  }
+
+  private static class SequenceFrame extends Frame {
+
+    private final List<PetitParser> parsers;
+    private final List<Object> elements;
+    private Context current;
+    private int index;
+
+    SequenceFrame(Context context, List<PetitParser> parsers) {
+      super(context);
+      this.parsers = parsers;
+      this.elements = new ArrayList<>(parsers.size());
+      this.current = context;
+    }
+
+    @Override
+    Result resume(Result result) {
+      if (result != null) {
+        if (result.isFailure()) {
+          return result;
+        }
+        elements.add(result.get());
+        current = result;
+      }
+      return index < parsers.size() ? call(parsers.get(index++), current) : current.success(elements);
+    }
+  }
+
+  private static class ChoiceFrame extends Frame {
+
+    private final List<PetitParser> parsers;
+    private final FailureJoiner failureJoiner;
+    private Failure failure;
+    private int index;
+
+    ChoiceFrame(Context context, List<PetitParser> parsers, FailureJoiner failureJoiner) {
+      super(context);
+      this.parsers = parsers;
+      this.failureJoiner = failureJoiner;
+    }
+
+    @Override
+    Result resume(Result result) {
+      if (result != null) {
+        if (result.isSuccess()) {
+          return result;
+        }
+        failure = failure == null ? (Failure) result : failureJoiner.apply(failure, (Failure) result);
+      }
+      return index < parsers.size() ? call(parsers.get(index++), context) : failure;
+    }
+  }
+
+  private abstract static class RepeatingFrame extends Frame {
+
+    final PetitParser delegate;
+    final int min;
+    final int max;
+    final List<Object> elements = new ArrayList<>();
+    Context current;
+
+    RepeatingFrame(Context context, PetitParser delegate, RepeatingParser parser) {
+      super(context);
+      this.delegate = delegate;
+      this.min = parser.getMin();
+      this.max = parser.getMax();
+      this.current = context;
+    }
+
+    boolean isBelowMax() {
+      return max == RepeatingParser.UNBOUNDED || elements.size() < max;
+    }
+  }
+
+  private static class PossessiveFrame extends RepeatingFrame {
+
+    PossessiveFrame(Context context, PetitParser delegate, RepeatingParser parser) {
+      super(context, delegate, parser);
+    }
+
+    @Override
+    Result resume(Result result) {
+      if (result != null) {
+        if (result.isFailure()) {
+          return elements.size() < min ? result : current.success(elements);
+        }
+        elements.add(result.get());
+        current = result;
+      }
+      return isBelowMax() ? call(delegate, current) : current.success(elements);
+    }
+  }
+
+  private static class GreedyFrame extends RepeatingFrame {
+
+    private final PetitParser limit;
+    private final List<Context> contexts = new ArrayList<>();
+    private boolean limiting;
+
+    GreedyFrame(Context context, PetitParser delegate, PetitParser limit, RepeatingParser parser) {
+      super(context, delegate, parser);
+      this.limit = limit;
+    }
+
+    @Override
+    Result resume(Result result) {
+      if (result == null) {
+        return elements.size() < min ? call(delegate, current) : consume();
+      } else if (limiting) {
+        if (result.isSuccess()) {
+          return contexts.get(contexts.size() - 1).success(elements);
+        }
+        if (elements.isEmpty()) {
+          return result;
+        }
+        contexts.remove(contexts.size() - 1);
+        elements.remove(elements.size() - 1);
+        return contexts.isEmpty() ? result : call(limit, contexts.get(contexts.size() - 1));
+      } else if (elements.size() < min) {
+        if (result.isFailure()) {
+          return result;
+        }
+        elements.add(result.get());
+        current = result;
+        return elements.size() < min ? call(delegate, current) : consume();
+      } else if (result.isFailure()) {
+        return backtrack();
+      }
+      elements.add(result.get());
+      contexts.add(current = result);
+      return isBelowMax() ? call(delegate, current) : backtrack();
+    }
+
+    private Result consume() {
+      contexts.add(current);
+      return isBelowMax() ? call(delegate, current) : backtrack();
+    }
+
+    private Result backtrack() {
+      limiting = true;
+      return call(limit, contexts.get(contexts.size() - 1));
+    }
+  }
+
+  private static class LazyFrame extends RepeatingFrame {
+
+    private final PetitParser limit;
+    private Result limiter;
+
+    LazyFrame(Context context, PetitParser delegate, PetitParser limit, RepeatingParser parser) {
+      super(context, delegate, parser);
+      this.limit = limit;
+    }
+
+    @Override
+    Result resume(Result result) {
+      if (result == null) {
+        return elements.size() < min ? call(delegate, current) : call(limit, current);
+      } else if (elements.size() < min) {
+        if (result.isFailure()) {
+          return result;
+        }
+        elements.add(result.get());
+        current = result;
+        return elements.size() < min ? call(delegate, current) : call(limit, current);
+      } else if (limiter == null) {
+        if (result.isSuccess()) {
+          return current.success(elements);
+        }
+        if (!isBelowMax()) {
+          return result;
+        }
+        limiter = result;
+        return call(delegate, current);
+      } else if (result.isFailure()) {
+        return limiter;
+      }
+      elements.add(result.get());
+      current = result;
+      limiter = null;
+      return call(limit, current);
+    }
+  }
+
+}
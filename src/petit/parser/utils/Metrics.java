@@ -0,0 +1,281 @@
+package petit.parser.utils;
+
+import petit.parser.PetitParser;
+import petit.parser.combinators.DelegateParser;
+import petit.parser.context.Context;
+import petit.parser.context.MutableContext;
+import petit.parser.context.Result;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Collects metrics of parsers in production, with a low overhead and safely under concurrency.
+ * <p>
+ * Every metered parser counts its invocations, successes and failures, the characters consumed by its successes,
+ * and the backtrack distance of its failures, that is the characters it examined before it failed and that have to be parsed again.
+ * Only one in {@code samplingInterval} invocations is timed, on average, so that {@link System#nanoTime()} is rarely called.
+ * The counters are {@link LongAdder}s that can be updated concurrently by the threads sharing the parser.
+ * <p>
+ * The metrics are handed to a {@link Sink} on {@link #publish()}, for example periodically to export them to a monitoring system.
+ * <pre>{@code
+ * var metrics = new Metrics(snapshot -> registry.record(snapshot));
+ * var parser = metrics.on(grammar, each -> each instanceof ActionParser);
+ * executor.scheduleAtFixedRate(metrics::publish, 1, 1, TimeUnit.MINUTES);
+ * }</pre>
+ */
+public class Metrics {
+
+  /**
+   * The default average number of invocations per timed invocation.
+   */
+  public static final int DEFAULT_SAMPLING_INTERVAL = 1024;
+
+  /**
+   * Receives the metrics of the meters.
+   */
+  @FunctionalInterface
+  public interface Sink {
+    void record(Snapshot snapshot);
+  }
+
+  private final Sink sink;
+  private final int samplingInterval;
+  private final List<Meter> meters = new CopyOnWriteArrayList<>();
+
+  /**
+   * Constructs metrics that publish to the provided {@code sink}, and time one in {@link #DEFAULT_SAMPLING_INTERVAL} invocations.
+   */
+  public Metrics(Sink sink) {
+    this(sink, DEFAULT_SAMPLING_INTERVAL);
+  }
+
+  /**
+   * Constructs metrics that publish to the provided {@code sink}, and time one in {@code samplingInterval} invocations,
+   * all of them if the interval is {@code 1}.
+   */
+  public Metrics(Sink sink, int samplingInterval) {
+    if (samplingInterval < 1) {
+      throw new IllegalArgumentException("Invalid sampling interval: " + samplingInterval);
+    }
+    this.sink = Objects.requireNonNull(sink, "Undefined sink");
+    this.samplingInterval = samplingInterval;
+  }
+
+  /**
+   * Returns a copy of the graph of {@code source} in which every parser is metered.
+   */
+  public PetitParser on(PetitParser source) {
+    return on(source, parser -> true);
+  }
+
+  /**
+   * Returns a copy of the graph of {@code source} in which the parsers accepted by the {@code selector} are metered,
+   * for example the productions of a grammar.
+   */
+  public PetitParser on(PetitParser source, Predicate<PetitParser> selector) {
+    return Mirror.of(source).transform(parser -> selector.test(parser) ? meter(parser, parser.toString()) : parser);
+  }
+
+  /**
+   * Returns a parser that meters the provided {@code parser} under the given {@code name}.
+   */
+  public MeteredParser meter(PetitParser parser, String name) {
+    var meter = new Meter(name, samplingInterval);
+    meters.add(meter);
+    return new MeteredParser(parser, meter);
+  }
+
+  /**
+   * Returns the meters created so far.
+   */
+  public List<Meter> getMeters() {
+    return List.copyOf(meters);
+  }
+
+  /**
+   * Hands a snapshot of every meter to the sink.
+   */
+  public void publish() {
+    for (var meter : meters) {
+      sink.record(meter.snapshot());
+    }
+  }
+
+  /**
+   * Resets the counters of all meters.
+   */
+  public void reset() {
+    meters.forEach(Meter::reset);
+  }
+
+  /**
+   * The thread-safe counters of a metered parser.
+   */
+  public static final class Meter {
+
+    private final String name;
+    private final int samplingInterval;
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder consumed = new LongAdder();
+    private final LongAdder backtracked = new LongAdder();
+    private final LongAdder samples = new LongAdder();
+    private final LongAdder sampledNanoseconds = new LongAdder();
+
+    private Meter(String name, int samplingInterval) {
+      this.name = Objects.requireNonNull(name, "Undefined name");
+      this.samplingInterval = samplingInterval;
+    }
+
+    /**
+     * Returns the name of the metered parser.
+     */
+    public String getName() {
+      return name;
+    }
+
+    private boolean sample() {
+      return samplingInterval == 1 || ThreadLocalRandom.current().nextInt(samplingInterval) == 0;
+    }
+
+    private void record(int start, boolean success, int position, long elapsed) {
+      invocations.increment();
+      if (success) {
+        successes.increment();
+        consumed.add(position - start);
+      } else {
+        failures.increment();
+        if (position > start) {
+          backtracked.add(position - start);
+        }
+      }
+      if (elapsed >= 0) {
+        samples.increment();
+        sampledNanoseconds.add(elapsed);
+      }
+    }
+
+    /**
+     * Returns the current values of the counters.
+     * <p>
+     * The values are not an atomic snapshot if the parser is active concurrently, each one is up to date at the time it is read.
+     */
+    public Snapshot snapshot() {
+      return new Snapshot(name, invocations.sum(), successes.sum(), failures.sum(), consumed.sum(), backtracked.sum(), samples.sum(), sampledNanoseconds.sum());
+    }
+
+    private void reset() {
+      invocations.reset();
+      successes.reset();
+      failures.reset();
+      consumed.reset();
+      backtracked.reset();
+      samples.reset();
+      sampledNanoseconds.reset();
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  /**
+   * The values of the counters of a meter.
+   * <p>
+   * The time of an invocation includes the time of the nested invocations, also of the same parser.
+   */
+  public record Snapshot(String name, long invocations, long successes, long failures,
+      long consumed, long backtracked, long samples, long sampledNanoseconds) {
+
+    /**
+     * Returns the estimated total time of all invocations, extrapolated from the timed samples.
+     */
+    public long estimatedNanoseconds() {
+      return samples == 0 ? 0 : Math.round((double) sampledNanoseconds * invocations / samples);
+    }
+
+    @Override
+    public String toString() {
+      return invocations + "\t" + successes + "\t" + failures + "\t" + consumed + "\t" + backtracked + "\t" + estimatedNanoseconds() + "\t" + name;
+    }
+  }
+
+  /**
+   * A parser that records the activations of its delegate in a {@link Meter}.
+   * <p>
+   * The position of a failure is only known with a {@link Context} or a {@link MutableContext}, failures of {@link #fastParseOn(CharSequence, int)} do not count a backtrack distance.
+   */
+  public static class MeteredParser extends DelegateParser {
+
+    private final Meter meter;
+
+    private MeteredParser(PetitParser delegate, Meter meter) {
+      super(delegate);
+      this.meter = meter;
+    }
+
+    @Override
+    public Result parseOn(Context context) {
+      var start = context.getPosition();
+      var sampled = meter.sample();
+      var begin = sampled ? System.nanoTime() : 0;
+      var result = delegate.parseOn(context);
+      meter.record(start, result.isSuccess(), result.getPosition(), sampled ? System.nanoTime() - begin : -1);
+      return result;
+    }
+
+    @Override
+    public boolean parseOn(MutableContext context) {
+      var start = context.getPosition();
+      var sampled = meter.sample();
+      var begin = sampled ? System.nanoTime() : 0;
+      var success = delegate.parseOn(context);
+      meter.record(start, success, context.getPosition(), sampled ? System.nanoTime() - begin : -1);
+      return success;
+    }
+
+    @Override
+    public int fastParseOn(CharSequence buffer, int position) {
+      var sampled = meter.sample();
+      var begin = sampled ? System.nanoTime() : 0;
+      var result = delegate.fastParseOn(buffer, position);
+      meter.record(position, result >= 0, result >= 0 ? result : position, sampled ? System.nanoTime() - begin : -1);
+      return result;
+    }
+
+    /**
+     * Returns the meter of the parser.
+     */
+    public Meter getMeter() {
+      return meter;
+    }
+
+    @Override
+    protected boolean hasEqualProperties(PetitParser other) {
+      return super.hasEqualProperties(other) && meter == ((MeteredParser) other).meter;
+    }
+
+    @Override
+    protected int hashProperties() {
+      return 31 * super.hashProperties() + System.identityHashCode(meter);
+    }
+
+    @Override
+    public MeteredParser copy() {
+      return new MeteredParser(delegate, meter);
+    }
+
+    @Override
+    public String toString() {
+      return super.toString() + "[" + meter + "]";
+    }
+  }
+
+}
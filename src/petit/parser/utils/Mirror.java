@@ -12,6 +12,7 @@ import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -89,9 +90,16 @@ public class Mirror implements Iterable<PetitParser> {
    * Returns a transformed copy of all parsers reachable from {@code parser}.
    */
   public PetitParser transform(Function<PetitParser, PetitParser> transformer) {
+    return transform((original, copy) -> transformer.apply(copy));
+  }
+
+  /**
+   * Returns a transformed copy of all parsers reachable from {@code parser}, the {@code transformer} is called with each original parser and its copy.
+   */
+  public PetitParser transform(BiFunction<PetitParser, PetitParser, PetitParser> transformer) {
     var mapping = new HashMap<PetitParser, PetitParser>();
     for (var parser : this) {
-      mapping.put(parser, transformer.apply(parser.copy()));
+      mapping.put(parser, transformer.apply(parser, parser.copy()));
     }
     var seen = new HashSet<PetitParser>(mapping.values());
     var todo = new ArrayList<PetitParser>(mapping.values());
@@ -1,25 +1,57 @@
 package petit.parser.utils;
 
 import petit.parser.PetitParser;
+import petit.parser.actions.FlattenParser;
+import petit.parser.actions.TrimmingParser;
+import petit.parser.combinators.ChoiceParser;
 import petit.parser.combinators.DelegateParser;
+import petit.parser.combinators.DispatchChoiceParser;
+import petit.parser.combinators.MemoParser;
+import petit.parser.combinators.MemoTable;
+import petit.parser.combinators.NotParser;
+import petit.parser.combinators.SequenceParser;
 import petit.parser.combinators.SettableParser;
+import petit.parser.primitive.CharacterParser;
+import petit.parser.primitive.CharacterPredicate;
+import petit.parser.primitive.EpsilonParser;
+import petit.parser.primitive.SpanParser;
+import petit.parser.primitive.StringParser;
+import petit.parser.repeating.GreedyRepeatingParser;
+import petit.parser.repeating.LazyRepeatingParser;
+import petit.parser.repeating.PossessiveRepeatingParser;
+import petit.parser.repeating.RepeatingParser;
 
 import java.util.List;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Tools to transform and optimize parser graphs.
  */
 public class Optimizer {
 
-  private final List<Function<PetitParser, PetitParser>> transformers = new ArrayList<>();
+  private final List<Supplier<Function<PetitParser, PetitParser>>> transformers = new ArrayList<>();
 
   /**
    * Adds a generic transformer.
    */
   public Optimizer add(Function<PetitParser, PetitParser> transformer) {
+    Objects.requireNonNull(transformer, "Undefined transformer");
+    transformers.add(() -> transformer);
+    return this;
+  }
+
+  /**
+   * Adds a transformer that is created anew for every {@link #transform(PetitParser)}, so that the state it caches about a graph does not outlive the transformation.
+   */
+  private Optimizer addPerTransform(Supplier<Function<PetitParser, PetitParser>> transformer) {
     transformers.add(transformer);
     return this;
   }
@@ -38,25 +70,233 @@ public class Optimizer {
 
   /**
    * Adds a transformer that collapses unnecessary copies of parsers.
+   * <p>
+   * The unique parsers are bucketed by their {@link PetitParser#structuralHash()}, so that a parser is only compared with the candidates of its bucket.
+   * Identical copies of recursive parsers are merged, but recursive parsers that only compare equal by revisiting parsers may be kept apart.
    */
   public Optimizer removeDuplicates() {
-    var uniques = new HashSet<PetitParser>();
+    var uniques = new HashMap<Integer, List<PetitParser>>();
     return add(parser -> {
-      var target = uniques.stream().filter(each -> parser != each && parser.isEqualTo(each)).findFirst();
-      if (target.isPresent()) {
-        return target.get();
-      } else {
-        uniques.add(parser);
-        return parser;
+      var bucket = uniques.computeIfAbsent(parser.structuralHash(), hash -> new ArrayList<>(1));
+      for (var each : bucket) {
+        if (parser != each && parser.isEqualTo(each)) {
+          return each;
+        }
       }
+      bucket.add(parser);
+      return parser;
+    });
+  }
+
+  /**
+   * Adds a transformer that replaces choices with a {@link DispatchChoiceParser}, that only tries the alternatives that can start with the next character.
+   * <p>
+   * Choices are only replaced if the {@link FirstSet} of some alternative restricts the next character.
+   */
+  public Optimizer dispatchChoices() {
+    return addPerTransform(() -> {
+      var firsts = new IdentityHashMap<PetitParser, FirstSet>();
+      return parser -> dispatchChoice(parser, firsts);
+    });
+  }
+
+  private static PetitParser dispatchChoice(PetitParser parser, Map<PetitParser, FirstSet> firsts) {
+    if (!ChoiceParser.class.equals(parser.getClass())) {
+      return parser;
+    }
+    var children = parser.getChildren();
+    if (children.size() > DispatchChoiceParser.MAX_ALTERNATIVES) {
+      return parser;
+    }
+    var alternatives = new FirstSet[children.size()];
+    var restricted = false;
+    for (var i = 0; i < alternatives.length; i++) {
+      alternatives[i] = FirstSet.analyze(children.get(i), firsts).get(children.get(i));
+      restricted |= !alternatives[i].isNullable() && !alternatives[i].isUnrestricted();
+    }
+    return restricted
+        ? new DispatchChoiceParser(((ChoiceParser) parser).getFailureJoiner(), children.toArray(PetitParser[]::new), alternatives)
+        : parser;
+  }
+
+  /**
+   * Adds a transformer that replaces possessive repetitions of a {@link CharacterParser}, flattened or not,
+   * with a {@link SpanParser} that scans the characters in a single loop.
+   */
+  public Optimizer fuseSpans() {
+    return add(parser -> {
+      SpanParser span = null;
+      if (FlattenParser.class.equals(parser.getClass())) {
+        span = span(parser.getChildren().get(0), SpanParser.Mode.FLATTEN, ((FlattenParser) parser).getMessage());
+      } else if (PossessiveRepeatingParser.class.equals(parser.getClass())) {
+        span = span(parser, SpanParser.Mode.LIST, null);
+      }
+      return span == null ? parser : span;
+    });
+  }
+
+  private static SpanParser span(PetitParser parser, SpanParser.Mode mode, String message) {
+    if (!PossessiveRepeatingParser.class.equals(parser.getClass())
+        || !CharacterParser.class.equals(parser.getChildren().get(0).getClass())) {
+      return null;
+    }
+    var repeating = (RepeatingParser) parser;
+    var character = (CharacterParser) parser.getChildren().get(0);
+    return message == null
+        ? SpanParser.of(character, repeating.getMin(), repeating.getMax(), mode)
+        : SpanParser.of(character, repeating.getMin(), repeating.getMax(), mode, message);
+  }
+
+  /**
+   * Adds a transformer that inlines nested choices and sequences, where this does not change the parse results.
+   * <p>
+   * Choices are inlined into choices with the same kind of failure joiner, and the alternatives after an {@link EpsilonParser} are removed as they are never tried.
+   * Sequences are only inlined where their value is discarded: below flattens, not-predicates, trimmings and repetition limits.
+   * There their {@link EpsilonParser}s are removed, and where failures are not reported either, adjacent literals are merged into a single {@link StringParser}.
+   */
+  public Optimizer flattenNested() {
+    return add(parser -> {
+      var type = parser.getClass();
+      if (type == ChoiceParser.class) {
+        return flattenChoice((ChoiceParser) parser);
+      } else if (type == FlattenParser.class) {
+        flattenDiscarded(parser, 0, ((FlattenParser) parser).getMessage() != null);
+      } else if (type == NotParser.class) {
+        flattenDiscarded(parser, 0, true);
+      } else if (type == TrimmingParser.class) {
+        flattenDiscarded(parser, 1, true);
+        flattenDiscarded(parser, 2, true);
+      } else if (type == GreedyRepeatingParser.class || type == LazyRepeatingParser.class) {
+        flattenDiscarded(parser, 1, false);
+      }
+      return parser;
     });
   }
 
+  private static final Set<Class<?>> ASSOCIATIVE_JOINERS = Set.of(
+      FailureJoiner.SelectFirst.class, FailureJoiner.SelectLast.class, FailureJoiner.SelectFarthest.class);
+
+  private static PetitParser flattenChoice(ChoiceParser parser) {
+    var alternatives = new ArrayList<PetitParser>();
+    collectAlternatives(parser, parser.getFailureJoiner(), alternatives, Collections.newSetFromMap(new IdentityHashMap<>()));
+    return alternatives.equals(parser.getChildren())
+        ? parser
+        : new ChoiceParser(parser.getFailureJoiner(), alternatives.toArray(PetitParser[]::new));
+  }
+
+  /**
+   * Collects the alternatives of a {@code choice}, returns {@code false} once an alternative always succeeds.
+   */
+  private static boolean collectAlternatives(PetitParser choice, FailureJoiner joiner, List<PetitParser> alternatives, Set<PetitParser> seen) {
+    for (var child : choice.getChildren()) {
+      if (child.getClass() == ChoiceParser.class
+          && ASSOCIATIVE_JOINERS.contains(joiner.getClass())
+          && ((ChoiceParser) child).getFailureJoiner().getClass() == joiner.getClass()
+          && seen.add(child)) {
+        if (!collectAlternatives(child, joiner, alternatives, seen)) {
+          return false;
+        }
+      } else {
+        alternatives.add(child);
+        if (child.getClass() == EpsilonParser.class) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Flattens the sequence at {@code index} of a {@code parent} that discards its value, and merges its literals if {@code merge} is set.
+   */
+  private static void flattenDiscarded(PetitParser parent, int index, boolean merge) {
+    var child = parent.getChildren().get(index);
+    if (child.getClass() != SequenceParser.class) {
+      return;
+    }
+    var elements = new ArrayList<PetitParser>();
+    collectElements(child, elements, Collections.newSetFromMap(new IdentityHashMap<>()));
+    if (merge) {
+      elements = mergeLiterals(elements);
+    }
+    if (elements.isEmpty()) {
+      parent.replace(child, new EpsilonParser());
+    } else if (elements.size() == 1) {
+      parent.replace(child, elements.get(0));
+    } else if (!elements.equals(child.getChildren())) {
+      parent.replace(child, new SequenceParser(elements.toArray(PetitParser[]::new)));
+    }
+  }
+
+  private static void collectElements(PetitParser sequence, List<PetitParser> elements, Set<PetitParser> seen) {
+    seen.add(sequence);
+    for (var child : sequence.getChildren()) {
+      if (child.getClass() == SequenceParser.class && !seen.contains(child)) {
+        collectElements(child, elements, seen);
+      } else if (child.getClass() != EpsilonParser.class) {
+        elements.add(child);
+      }
+    }
+  }
+
+  private static ArrayList<PetitParser> mergeLiterals(List<PetitParser> elements) {
+    var merged = new ArrayList<PetitParser>();
+    var literal = new StringBuilder();
+    var start = 0;
+    for (var i = 0; i <= elements.size(); i++) {
+      var value = i < elements.size() ? literal(elements.get(i)) : null;
+      if (value != null) {
+        literal.append(value);
+        continue;
+      }
+      if (i - start > 1) {
+        merged.add(StringParser.of(literal.toString()));
+      } else if (i - start == 1) {
+        merged.add(elements.get(start));
+      }
+      if (i < elements.size()) {
+        merged.add(elements.get(i));
+      }
+      literal.setLength(0);
+      start = i + 1;
+    }
+    return merged;
+  }
+
+  /**
+   * Returns the literal accepted by a {@code parser}, or {@code null}.
+   */
+  private static String literal(PetitParser parser) {
+    if (parser.getClass() == StringParser.class && !((StringParser) parser).isIgnoringCase()) {
+      return ((StringParser) parser).getValue();
+    } else if (parser.getClass() == CharacterParser.class
+        && ((CharacterParser) parser).getMatcher() instanceof CharacterPredicate.SingleCharacterPredicate single) {
+      return String.valueOf(single.character());
+    }
+    return null;
+  }
+
+  /**
+   * Adds a transformer that memoizes all parsers with children in a shared {@link MemoTable} (packrat parsing).
+   * <p>
+   * Add this transformer last, so that it wraps the result of the other optimizations.
+   */
+  public Optimizer memoizeAll() {
+    return memoizeAll(new MemoTable());
+  }
+
+  /**
+   * Adds a transformer that memoizes all parsers with children in the provided {@code table}.
+   */
+  public Optimizer memoizeAll(MemoTable table) {
+    return add(parser -> parser instanceof MemoParser || parser.getChildren().isEmpty() ? parser : parser.memoize(table));
+  }
+
   /**
    * Transforms the provided parsers using the selected optimizations.
    */
   public PetitParser transform(PetitParser parser) {
-    var transformer = transformers.stream().reduce(Function::andThen).orElse(Function.identity());
+    var transformer = transformers.stream().map(Supplier::get).reduce(Function::andThen).orElse(Function.identity());
     return Mirror.of(parser).transform(transformer);
   }
 
@@ -0,0 +1,455 @@
+package petit.parser.utils;
+
+import petit.parser.PetitParser;
+import petit.parser.actions.ActionParser;
+import petit.parser.actions.FlattenParser;
+import petit.parser.actions.TokenParser;
+import petit.parser.combinators.AndParser;
+import petit.parser.combinators.ChoiceParser;
+import petit.parser.combinators.DelegateParser;
+import petit.parser.combinators.DispatchChoiceParser;
+import petit.parser.combinators.EndOfInputParser;
+import petit.parser.combinators.NotParser;
+import petit.parser.combinators.OptionalParser;
+import petit.parser.combinators.SequenceParser;
+import petit.parser.combinators.SettableParser;
+import petit.parser.context.Context;
+import petit.parser.context.MutableContext;
+import petit.parser.context.Result;
+import petit.parser.primitive.EpsilonParser;
+import petit.parser.repeating.PossessiveRepeatingParser;
+import petit.parser.repeating.RepeatingParser;
+import petit.parser.tools.GrammarParser;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.function.Function;
+
+import static petit.parser.utils.Bytecode.*;
+
+/**
+ * Compiles parser graphs to JVM bytecode.
+ * <p>
+ * Every parser of the graph becomes two methods of a hidden class: one that recognizes the input like {@link PetitParser#fastParseOn(CharSequence, int)},
+ * and one that parses on a {@link MutableContext} like {@link PetitParser#parseOn(MutableContext)}.
+ * Sequences, choices, optionals, lookaheads, possessive repetitions, actions, flattens and tokens are generated inline
+ * with primitive positions and direct calls between the methods, semantic actions are called back through their {@link Function}.
+ * All other parsers, such as the primitives, are called directly through a field of their exact type.
+ * Delegates, settables and grammar parsers are resolved away.
+ * <p>
+ * The compiled parser captures the graph at the time of compilation: later changes to the graph are not reflected.
+ */
+public class ParserCompiler {
+  private ParserCompiler() {}
+
+  /**
+   * The interface implemented by the generated classes.
+   */
+  interface Program {
+
+    int fastParseOn(CharSequence buffer, int position);
+
+    boolean parseOn(MutableContext context);
+  }
+
+  /**
+   * Returns a parser that behaves like the provided {@code parser}, but runs compiled code.
+   * @throws IllegalStateException if the graph is too large to fit a single class.
+   */
+  public static CompiledParser compile(PetitParser parser) {
+    var generator = new Generator();
+    generator.generate(parser);
+    if (!generator.bytecode.isWithinLimits()) {
+      throw new IllegalStateException("Grammar too large to compile");
+    }
+    try {
+      var lookup = MethodHandles.lookup().defineHiddenClass(generator.bytecode.toByteArray(), true);
+      var constructor = lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class, Object[].class));
+      var program = (Program) constructor.invoke(generator.constants.toArray());
+      return new CompiledParser(parser, program);
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new IllegalStateException("Unable to compile " + parser, e);
+    }
+  }
+
+  /**
+   * A parser that runs the compiled code of its delegate.
+   * <p>
+   * Replacing the delegate does not change the compiled code.
+   */
+  public static class CompiledParser extends DelegateParser {
+
+    private final Program program;
+
+    private CompiledParser(PetitParser delegate, Program program) {
+      super(delegate);
+      this.program = program;
+    }
+
+    @Override
+    public Result parseOn(Context context) {
+      var mutable = new MutableContext(context.getBuffer(), context.getPosition());
+      program.parseOn(mutable);
+      return mutable.toResult();
+    }
+
+    @Override
+    public boolean parseOn(MutableContext context) {
+      return program.parseOn(context);
+    }
+
+    @Override
+    public int fastParseOn(CharSequence buffer, int position) {
+      return program.fastParseOn(buffer, position);
+    }
+
+    @Override
+    public CompiledParser copy() {
+      return new CompiledParser(delegate, program);
+    }
+  }
+
+  private static final String NAME = ParserCompiler.class.getPackageName().replace('.', '/') + "/CompiledProgram";
+
+  private static final String OBJECT = "java/lang/Object";
+  private static final String FUNCTION = "java/util/function/Function";
+  private static final String BUFFER = "java/lang/CharSequence";
+  private static final String CONTEXT = "petit/parser/context/MutableContext";
+  private static final String TOKEN = "petit/parser/context/Token";
+
+  private static final String FAST = "(L" + BUFFER + ";I)I";
+  private static final String PARSE = "(L" + CONTEXT + ";)Z";
+
+  /**
+   * The locals of the generated methods.
+   */
+  private static final int BUFFER_LOCAL = 1, CONTEXT_LOCAL = 1, POSITION_LOCAL = 2, RESULT_LOCAL = 3, COUNT_LOCAL = 4, MAX_LOCALS = 5;
+
+  /**
+   * Internal generator of the class of a parser graph.
+   */
+  private static class Generator {
+
+    private final Bytecode bytecode = new Bytecode(NAME, OBJECT, ParserCompiler.class.getName().replace('.', '/') + "$Program");
+    private final Map<PetitParser, Integer> indexes = new IdentityHashMap<>();
+    private final Queue<PetitParser> pending = new ArrayDeque<>();
+    private final List<Object> constants = new ArrayList<>();
+    private final List<String> descriptors = new ArrayList<>();
+
+    private void generate(PetitParser root) {
+      var start = index(root);
+      while (!pending.isEmpty()) {
+        var parser = pending.remove();
+        var index = indexes.get(parser);
+        generateFast(parser, bytecode.method(ACC_PUBLIC | ACC_FINAL, "f" + index, FAST, MAX_LOCALS));
+        generateParse(parser, bytecode.method(ACC_PUBLIC | ACC_FINAL, "m" + index, PARSE, MAX_LOCALS));
+      }
+      bytecode.method(ACC_PUBLIC, "fastParseOn", FAST, 3)
+          .aload(0).aload(BUFFER_LOCAL).iload(POSITION_LOCAL).invokevirtual(NAME, "f" + start, FAST).op(IRETURN);
+      bytecode.method(ACC_PUBLIC, "parseOn", PARSE, 2)
+          .aload(0).aload(CONTEXT_LOCAL).invokevirtual(NAME, "m" + start, PARSE).op(IRETURN);
+      var constructor = bytecode.method(ACC_PUBLIC, "<init>", "([L" + OBJECT + ";)V", 2)
+          .aload(0).invokespecial(OBJECT, "<init>", "()V");
+      for (var i = 0; i < constants.size(); i++) {
+        var descriptor = descriptors.get(i);
+        constructor.aload(0).aload(1).iconst(i).op(AALOAD)
+            .checkcast(descriptor.substring(1, descriptor.length() - 1))
+            .putfield(NAME, "c" + i, descriptor);
+      }
+      constructor.op(RETURN);
+    }
+
+    /**
+     * Returns the index of the methods of a {@code parser}, and schedules their generation.
+     */
+    private int index(PetitParser parser) {
+      parser = resolve(parser);
+      var index = indexes.get(parser);
+      if (index == null) {
+        index = indexes.size();
+        indexes.put(parser, index);
+        pending.add(parser);
+      }
+      return index;
+    }
+
+    /**
+     * Skips the parsers that only delegate.
+     */
+    private static PetitParser resolve(PetitParser parser) {
+      var seen = new IdentityHashMap<PetitParser, Boolean>();
+      while (isTransparent(parser) && seen.put(parser, true) == null) {
+        parser = parser.getChildren().get(0);
+      }
+      return parser;
+    }
+
+    private static boolean isTransparent(PetitParser parser) {
+      var type = parser.getClass();
+      return type == DelegateParser.class || type == SettableParser.class || parser instanceof GrammarParser;
+    }
+
+    /**
+     * Adds a field holding a {@code value} of a {@code type}, and returns its name.
+     */
+    private String constant(Object value, Class<?> type) {
+      var name = "c" + constants.size();
+      var descriptor = "L" + accessible(type).getName().replace('.', '/') + ";";
+      constants.add(value);
+      descriptors.add(descriptor);
+      bytecode.field(ACC_PRIVATE | ACC_FINAL, name, descriptor);
+      return name;
+    }
+
+    private Bytecode.Code load(Bytecode.Code code, Object value, Class<?> type) {
+      var name = constant(value, type);
+      return code.aload(0).getfield(NAME, name, descriptors.get(descriptors.size() - 1));
+    }
+
+    /**
+     * Returns the most specific type of {@code type} that the generated class can refer to.
+     */
+    private static Class<?> accessible(Class<?> type) {
+      while (!isAccessible(type)) {
+        type = type.getSuperclass();
+      }
+      return type;
+    }
+
+    private static boolean isAccessible(Class<?> type) {
+      for (var each = type; each != null; each = each.getEnclosingClass()) {
+        if (!Modifier.isPublic(each.getModifiers())) {
+          return false;
+        }
+      }
+      try {
+        return Class.forName(type.getName(), false, ParserCompiler.class.getClassLoader()) == type;
+      } catch (ClassNotFoundException e) {
+        return false;
+      }
+    }
+
+    private void callFast(Bytecode.Code code, PetitParser child) {
+      code.aload(0).aload(BUFFER_LOCAL).iload(POSITION_LOCAL).invokevirtual(NAME, "f" + index(child), FAST);
+    }
+
+    private void callParse(Bytecode.Code code, PetitParser child) {
+      code.aload(0).aload(CONTEXT_LOCAL).invokevirtual(NAME, "m" + index(child), PARSE);
+    }
+
+    private void generateFast(PetitParser parser, Bytecode.Code code) {
+      var type = parser.getClass();
+      var children = parser.getChildren();
+      if (type == SequenceParser.class) {
+        var failure = code.label();
+        for (var child : children) {
+          callFast(code, child);
+          code.op(DUP).istore(POSITION_LOCAL).jump(IFLT, failure);
+        }
+        code.iload(POSITION_LOCAL).op(IRETURN);
+        code.mark(failure).iconst(-1).op(IRETURN);
+      } else if (type == ChoiceParser.class || type == DispatchChoiceParser.class) {
+        for (var child : children) {
+          var next = code.label();
+          callFast(code, child);
+          code.op(DUP).istore(RESULT_LOCAL).jump(IFLT, next);
+          code.iload(RESULT_LOCAL).op(IRETURN);
+          code.mark(next);
+        }
+        code.iconst(-1).op(IRETURN);
+      } else if (type == OptionalParser.class) {
+        var failure = code.label();
+        callFast(code, children.get(0));
+        code.op(DUP).istore(RESULT_LOCAL).jump(IFLT, failure);
+        code.iload(RESULT_LOCAL).op(IRETURN);
+        code.mark(failure).iload(POSITION_LOCAL).op(IRETURN);
+      } else if (type == AndParser.class || type == NotParser.class) {
+        var failure = code.label();
+        callFast(code, children.get(0));
+        code.jump(IFLT, failure);
+        (type == AndParser.class ? code.iload(POSITION_LOCAL) : code.iconst(-1)).op(IRETURN);
+        code.mark(failure);
+        (type == AndParser.class ? code.iconst(-1) : code.iload(POSITION_LOCAL)).op(IRETURN);
+      } else if (type == PossessiveRepeatingParser.class) {
+        var repeating = (RepeatingParser) parser;
+        var minimum = code.label();
+        var maximum = code.label();
+        var success = code.label();
+        var end = code.label();
+        code.iconst(0).istore(COUNT_LOCAL);
+        code.mark(minimum).iload(COUNT_LOCAL).iconst(repeating.getMin()).jump(IF_ICMPGE, maximum);
+        callFast(code, children.get(0));
+        code.op(DUP).istore(RESULT_LOCAL).jump(IFGE, success);
+        code.iload(RESULT_LOCAL).op(IRETURN);
+        code.mark(success).iload(RESULT_LOCAL).istore(POSITION_LOCAL).iinc(COUNT_LOCAL, 1).jump(GOTO, minimum);
+        code.mark(maximum);
+        if (repeating.getMax() != RepeatingParser.UNBOUNDED) {
+          code.iload(COUNT_LOCAL).iconst(repeating.getMax()).jump(IF_ICMPGE, end);
+        }
+        callFast(code, children.get(0));
+        code.op(DUP).istore(RESULT_LOCAL).jump(IFLT, end);
+        code.iload(RESULT_LOCAL).istore(POSITION_LOCAL).iinc(COUNT_LOCAL, 1).jump(GOTO, maximum);
+        code.mark(end).iload(POSITION_LOCAL).op(IRETURN);
+      } else if (type == ActionParser.class && !((ActionParser<?, ?>) parser).hasSideEffects()
+          || type == TokenParser.class || type == FlattenParser.class) {
+        callFast(code, children.get(0));
+        code.op(IRETURN);
+      } else if (type == EpsilonParser.class) {
+        code.iload(POSITION_LOCAL).op(IRETURN);
+      } else if (type == EndOfInputParser.class) {
+        var failure = code.label();
+        code.iload(POSITION_LOCAL).aload(BUFFER_LOCAL).invokeinterface(BUFFER, "length", "()I", 0).jump(IF_ICMPLT, failure);
+        code.iload(POSITION_LOCAL).op(IRETURN);
+        code.mark(failure).iconst(-1).op(IRETURN);
+      } else {
+        var owner = accessible(type).getName().replace('.', '/');
+        load(code, parser, type).aload(BUFFER_LOCAL).iload(POSITION_LOCAL).invokevirtual(owner, "fastParseOn", FAST).op(IRETURN);
+      }
+    }
+
+    private void generateParse(PetitParser parser, Bytecode.Code code) {
+      var type = parser.getClass();
+      var children = parser.getChildren();
+      if (type == SequenceParser.class || type == PossessiveRepeatingParser.class) {
+        generateList(parser, code);
+      } else if ((type == ChoiceParser.class || type == DispatchChoiceParser.class)
+          && ((ChoiceParser) parser).getFailureJoiner() instanceof FailureJoiner.SelectLast) {
+        getPosition(code);
+        for (var child : children) {
+          var next = code.label();
+          code.aload(CONTEXT_LOCAL).iload(POSITION_LOCAL).invokevirtual(CONTEXT, "setPosition", "(I)V");
+          callParse(code, child);
+          code.jump(IFEQ, next).iconst(1).op(IRETURN);
+          code.mark(next);
+        }
+        code.iconst(0).op(IRETURN);
+      } else if (type == OptionalParser.class) {
+        var failure = code.label();
+        getPosition(code);
+        callParse(code, children.get(0));
+        code.jump(IFEQ, failure).iconst(1).op(IRETURN);
+        code.mark(failure).aload(CONTEXT_LOCAL);
+        load(code, ((OptionalParser) parser).getOtherwise(), Object.class)
+            .iload(POSITION_LOCAL).invokevirtual(CONTEXT, "success", "(L" + OBJECT + ";I)Z").op(IRETURN);
+      } else if (type == AndParser.class) {
+        var failure = code.label();
+        getPosition(code);
+        callParse(code, children.get(0));
+        code.jump(IFEQ, failure);
+        code.aload(CONTEXT_LOCAL).iload(POSITION_LOCAL).invokevirtual(CONTEXT, "setPosition", "(I)V").iconst(1).op(IRETURN);
+        code.mark(failure).iconst(0).op(IRETURN);
+      } else if (type == ActionParser.class) {
+        var failure = code.label();
+        callParse(code, children.get(0));
+        code.jump(IFEQ, failure).aload(CONTEXT_LOCAL);
+        load(code, ((ActionParser<?, ?>) parser).getFunction(), Function.class)
+            .aload(CONTEXT_LOCAL).invokevirtual(CONTEXT, "getValue", "()L" + OBJECT + ";")
+            .invokeinterface(FUNCTION, "apply", "(L" + OBJECT + ";)L" + OBJECT + ";", 1)
+            .invokevirtual(CONTEXT, "success", "(L" + OBJECT + ";)Z").op(IRETURN);
+        code.mark(failure).iconst(0).op(IRETURN);
+      } else if (type == TokenParser.class) {
+        var failure = code.label();
+        getPosition(code);
+        callParse(code, children.get(0));
+        code.jump(IFEQ, failure).aload(CONTEXT_LOCAL).newInstance(TOKEN).op(DUP);
+        getBuffer(code).iload(POSITION_LOCAL);
+        code.aload(CONTEXT_LOCAL).invokevirtual(CONTEXT, "getPosition", "()I");
+        code.aload(CONTEXT_LOCAL).invokevirtual(CONTEXT, "getValue", "()L" + OBJECT + ";");
+        code.invokespecial(TOKEN, "<init>", "(L" + BUFFER + ";IIL" + OBJECT + ";)V")
+            .invokevirtual(CONTEXT, "success", "(L" + OBJECT + ";)Z").op(IRETURN);
+        code.mark(failure).iconst(0).op(IRETURN);
+      } else if (type == FlattenParser.class) {
+        generateFlatten((FlattenParser) parser, code);
+      } else if (type == EpsilonParser.class) {
+        code.aload(CONTEXT_LOCAL).op(ACONST_NULL).invokevirtual(CONTEXT, "success", "(L" + OBJECT + ";)Z").op(IRETURN);
+      } else {
+        var owner = accessible(type).getName().replace('.', '/');
+        load(code, parser, type).aload(CONTEXT_LOCAL).invokevirtual(owner, "parseOn", PARSE).op(IRETURN);
+      }
+    }
+
+    /**
+     * Generates the parsers that collect the values of their children, with the stack of intermediate values of the context.
+     */
+    private void generateList(PetitParser parser, Bytecode.Code code) {
+      var failure = code.label();
+      var end = code.label();
+      code.aload(CONTEXT_LOCAL).invokevirtual(CONTEXT, "mark", "()I").istore(POSITION_LOCAL);
+      if (parser instanceof SequenceParser) {
+        for (var child : parser.getChildren()) {
+          callParse(code, child);
+          code.jump(IFEQ, failure);
+          code.aload(CONTEXT_LOCAL).invokevirtual(CONTEXT, "push", "()V");
+        }
+      } else {
+        var repeating = (RepeatingParser) parser;
+        var delegate = parser.getChildren().get(0);
+        var minimum = code.label();
+        var maximum = code.label();
+        var backtrack = code.label();
+        code.iconst(0).istore(RESULT_LOCAL);
+        code.mark(minimum).iload(RESULT_LOCAL).iconst(repeating.getMin()).jump(IF_ICMPGE, maximum);
+        callParse(code, delegate);
+        code.jump(IFEQ, failure);
+        code.aload(CONTEXT_LOCAL).invokevirtual(CONTEXT, "push", "()V").iinc(RESULT_LOCAL, 1).jump(GOTO, minimum);
+        code.mark(maximum);
+        if (repeating.getMax() != RepeatingParser.UNBOUNDED) {
+          code.iload(RESULT_LOCAL).iconst(repeating.getMax()).jump(IF_ICMPGE, end);
+        }
+        code.aload(CONTEXT_LOCAL).invokevirtual(CONTEXT, "getPosition", "()I").istore(COUNT_LOCAL);
+        callParse(code, delegate);
+        code.jump(IFEQ, backtrack);
+        code.aload(CONTEXT_LOCAL).invokevirtual(CONTEXT, "push", "()V").iinc(RESULT_LOCAL, 1).jump(GOTO, maximum);
+        code.mark(backtrack).aload(CONTEXT_LOCAL).iload(COUNT_LOCAL).invokevirtual(CONTEXT, "setPosition", "(I)V");
+      }
+      code.mark(end).aload(CONTEXT_LOCAL).aload(CONTEXT_LOCAL).iload(POSITION_LOCAL)
+          .invokevirtual(CONTEXT, "pop", "(I)Ljava/util/List;")
+          .invokevirtual(CONTEXT, "success", "(L" + OBJECT + ";)Z").op(IRETURN);
+      code.mark(failure).aload(CONTEXT_LOCAL).iload(POSITION_LOCAL).invokevirtual(CONTEXT, "release", "(I)V").iconst(0).op(IRETURN);
+    }
+
+    private void generateFlatten(FlattenParser parser, Bytecode.Code code) {
+      var failure = code.label();
+      var delegate = parser.getChildren().get(0);
+      getPosition(code);
+      if (parser.getMessage() == null) {
+        callParse(code, delegate);
+        code.jump(IFEQ, failure).aload(CONTEXT_LOCAL);
+        getBuffer(code).iload(POSITION_LOCAL).aload(CONTEXT_LOCAL).invokevirtual(CONTEXT, "getPosition", "()I");
+        subSequence(code).invokevirtual(CONTEXT, "success", "(L" + OBJECT + ";)Z").op(IRETURN);
+        code.mark(failure).iconst(0).op(IRETURN);
+      } else {
+        getBuffer(code).astore(COUNT_LOCAL);
+        code.aload(0).aload(COUNT_LOCAL).iload(POSITION_LOCAL).invokevirtual(NAME, "f" + index(delegate), FAST);
+        code.op(DUP).istore(RESULT_LOCAL).jump(IFLT, failure);
+        code.aload(CONTEXT_LOCAL).aload(COUNT_LOCAL).iload(POSITION_LOCAL).iload(RESULT_LOCAL);
+        subSequence(code).iload(RESULT_LOCAL).invokevirtual(CONTEXT, "success", "(L" + OBJECT + ";I)Z").op(IRETURN);
+        code.mark(failure).aload(CONTEXT_LOCAL);
+        load(code, parser.getMessage(), String.class).invokevirtual(CONTEXT, "failure", "(Ljava/lang/String;)Z").op(IRETURN);
+      }
+    }
+
+    private static void getPosition(Bytecode.Code code) {
+      code.aload(CONTEXT_LOCAL).invokevirtual(CONTEXT, "getPosition", "()I").istore(POSITION_LOCAL);
+    }
+
+    private static Bytecode.Code getBuffer(Bytecode.Code code) {
+      return code.aload(CONTEXT_LOCAL).invokevirtual(CONTEXT, "getBuffer", "()L" + BUFFER + ";");
+    }
+
+    private static Bytecode.Code subSequence(Bytecode.Code code) {
+      return code.invokeinterface(BUFFER, "subSequence", "(II)L" + BUFFER + ";", 2)
+          .invokeinterface(BUFFER, "toString", "()Ljava/lang/String;", 0);
+    }
+  }
+
+}
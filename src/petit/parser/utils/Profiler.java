@@ -2,34 +2,73 @@ package petit.parser.utils;
 
 import petit.parser.PetitParser;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Profiles the run-time of parsers.
+ * <p>
+ * Every activation is measured with its inclusive time, and with its self time that excludes the nested activations of other parsers.
+ * The allocated bytes are measured the same way if the JVM supports {@link com.sun.management.ThreadMXBean#getCurrentThreadAllocatedBytes()}, otherwise they are {@code 0}.
+ * The profiled parser is meant for a single thread.
  */
 public class Profiler {
   private Profiler() {}
 
+  private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+  private static com.sun.management.ThreadMXBean threads() {
+    try {
+      if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+          && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+        return threads;
+      }
+    } catch (LinkageError | UnsupportedOperationException e) {
+      // allocations are not measured
+    }
+    return null;
+  }
+
+  private static long allocatedBytes() {
+    return THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+  }
+
   /**
    * Returns a parser that calls the provided consumer with a {@link Profile} of every parser.
+   * <p>
+   * The profiled parser keeps the fast path of {@link PetitParser#accept(CharSequence)}, so that its profile is not distorted by allocations.
    */
   public static PetitParser on(PetitParser source, Consumer<Profile> consumer) {
-    var builders = new LinkedHashMap<PetitParser, ProfileBuilder>();
-    return Mirror.of(source).transform(parser -> {
-      var builder = new ProfileBuilder(parser);
-      builders.put(parser, builder);
-      return parser.callCC((continuation, context) -> {
-        builder.start();
-        var result = continuation.apply(context);
-        builder.stop();
-        return result;
-      });
-    }).callCC((continuation, context) -> {
-      builders.values().forEach(ProfileBuilder::reset);
-      var result = continuation.apply(context);
-      builders.values().stream().map(ProfileBuilder::build).forEach(consumer);
-      return result;
+    return on(source, PetitParser::toString, consumer);
+  }
+
+  /**
+   * Returns a parser that calls the provided consumer with a {@link Profile} of every parser, named by the provided function,
+   * for example {@link petit.parser.tools.GrammarDefinition#nameOf(PetitParser)}.
+   * Parsers without a name are named by {@link PetitParser#toString()}.
+   */
+  public static PetitParser on(PetitParser source, Function<PetitParser, String> names, Consumer<Profile> consumer) {
+    return new Session(names).profile(source, builders -> builders.stream().map(ProfileBuilder::build).forEach(consumer));
+  }
+
+  /**
+   * Returns a parser that calls the provided consumer with the collapsed stacks of every parse, the input format of flame graph tools such as {@code flamegraph.pl}.
+   * <p>
+   * Every line is a distinct stack of the parsers named by the provided function, separated by {@code ;}, followed by a space and its self time in nanoseconds.
+   * Parsers without a name are not part of the stacks, their self time is attributed to their closest named ancestor.
+   */
+  public static PetitParser collapsed(PetitParser source, Function<PetitParser, String> names, Consumer<String> consumer) {
+    var session = new Session(names);
+    session.stacks = new LinkedHashMap<>();
+    return session.profile(source, builders -> {
+      session.stacks.forEach((stack, nanoseconds) -> consumer.accept(stack + " " + nanoseconds));
+      session.stacks.clear();
     });
   }
 
@@ -43,6 +82,11 @@ public class Profiler {
      */
     public final PetitParser parser;
 
+    /**
+     * The name of the parser being profiled.
+     */
+    public final String name;
+
     /**
      * The number of times the parser got activated on the top-level.
      */
@@ -53,16 +97,49 @@ public class Profiler {
      */
     public final int totalActivationCount;
 
+    /**
+     * The number of activations that failed, and caused their caller to backtrack.
+     */
+    public final int failureCount;
+
     /**
      * The total time this parser or any of its children has been active.
      */
     public final long elapsedNanoseconds;
 
-    private Profile(PetitParser parser, int activationCount, int totalActivationCount, long elapsedNanoseconds) {
+    /**
+     * The total time this parser has been active, excluding the time of the other parsers it activated.
+     */
+    public final long selfNanoseconds;
+
+    /**
+     * The bytes allocated while this parser or any of its children has been active.
+     */
+    public final long allocatedBytes;
+
+    /**
+     * The bytes allocated while this parser has been active, excluding the allocations of the other parsers it activated.
+     */
+    public final long selfAllocatedBytes;
+
+    private Profile(PetitParser parser, String name, int activationCount, int totalActivationCount, int failureCount,
+        long elapsedNanoseconds, long selfNanoseconds, long allocatedBytes, long selfAllocatedBytes) {
       this.parser = parser;
+      this.name = name;
       this.activationCount = activationCount;
       this.totalActivationCount = totalActivationCount;
+      this.failureCount = failureCount;
       this.elapsedNanoseconds = elapsedNanoseconds;
+      this.selfNanoseconds = selfNanoseconds;
+      this.allocatedBytes = allocatedBytes;
+      this.selfAllocatedBytes = selfAllocatedBytes;
+    }
+
+    /**
+     * Returns the ratio of activations that failed, {@code 0} if the parser was not activated.
+     */
+    public double backtrackingRatio() {
+      return totalActivationCount == 0 ? 0 : (double) failureCount / totalActivationCount;
     }
 
     @Override
@@ -71,29 +148,135 @@ public class Profiler {
     }
   }
 
+  /**
+   * Internal state of a profiled parser.
+   */
+  private static class Session {
+
+    private final Function<PetitParser, String> names;
+    private final List<ProfileBuilder> builders = new ArrayList<>();
+    private final List<Frame> frames = new ArrayList<>();
+    private Map<String, Long> stacks;
+
+    private Session(Function<PetitParser, String> names) {
+      this.names = Objects.requireNonNull(names, "Undefined names");
+    }
+
+    private PetitParser profile(PetitParser source, Consumer<List<ProfileBuilder>> report) {
+      return Mirror.of(source).transform((original, parser) -> {
+        var builder = new ProfileBuilder(parser, names.apply(original));
+        builders.add(builder);
+        return parser.callCC((continuation, context) -> {
+          start(builder);
+          var result = continuation.apply(context);
+          stop(builder, result.isSuccess());
+          return result;
+        }, (continuation, buffer, position) -> {
+          start(builder);
+          var result = continuation.apply(buffer, position);
+          stop(builder, result >= 0);
+          return result;
+        });
+      }).callCC((continuation, context) -> {
+        reset();
+        var result = continuation.apply(context);
+        report.accept(builders);
+        return result;
+      }, (continuation, buffer, position) -> {
+        reset();
+        var result = continuation.apply(buffer, position);
+        report.accept(builders);
+        return result;
+      });
+    }
+
+    private void reset() {
+      builders.forEach(ProfileBuilder::reset);
+      frames.clear();
+    }
+
+    private void start(ProfileBuilder builder) {
+      builder.start();
+      var parent = frames.isEmpty() ? null : frames.get(frames.size() - 1);
+      var stack = parent == null ? null : parent.stack;
+      if (stacks != null && builder.name != null) {
+        stack = stack == null ? builder.frameName() : stack + ";" + builder.frameName();
+      }
+      frames.add(new Frame(stack, System.nanoTime(), allocatedBytes()));
+    }
+
+    private void stop(ProfileBuilder builder, boolean success) {
+      var stopTime = System.nanoTime();
+      var stopAllocated = allocatedBytes();
+      var frame = frames.remove(frames.size() - 1);
+      var elapsed = stopTime - frame.startTime;
+      var allocated = stopAllocated - frame.startAllocated;
+      var self = elapsed - frame.childNanoseconds;
+      builder.stop(success, elapsed, self, allocated, allocated - frame.childAllocatedBytes);
+      if (!frames.isEmpty()) {
+        var parent = frames.get(frames.size() - 1);
+        parent.childNanoseconds += elapsed;
+        parent.childAllocatedBytes += allocated;
+      }
+      if (stacks != null && frame.stack != null) {
+        stacks.merge(frame.stack, self, Long::sum);
+      }
+    }
+  }
+
+  /**
+   * Internal activation of a parser.
+   */
+  private static class Frame {
+
+    private final String stack;
+    private final long startTime;
+    private final long startAllocated;
+    private long childNanoseconds;
+    private long childAllocatedBytes;
+
+    private Frame(String stack, long startTime, long startAllocated) {
+      this.stack = stack;
+      this.startTime = startTime;
+      this.startAllocated = startAllocated;
+    }
+  }
+
   /**
    * Internal builder for profile information.
    */
   private static class ProfileBuilder {
 
     private final PetitParser parser;
+    private final String name;
 
     private int activationCount;
     private int totalActivationCount;
+    private int failureCount;
     private long elapsedNanoseconds;
+    private long selfNanoseconds;
+    private long allocatedBytes;
+    private long selfAllocatedBytes;
     private int nestingLevel;
-    private long startTime;
 
-    private ProfileBuilder(PetitParser parser) {
+    private ProfileBuilder(PetitParser parser, String name) {
       this.parser = parser;
+      this.name = name;
+    }
+
+    private String frameName() {
+      return name.replace(';', ',').replace('\n', ' ');
     }
 
     private void reset() {
       activationCount = 0;
       totalActivationCount = 0;
+      failureCount = 0;
       elapsedNanoseconds = 0;
+      selfNanoseconds = 0;
+      allocatedBytes = 0;
+      selfAllocatedBytes = 0;
       nestingLevel = 0;
-      startTime = 0;
     }
 
     private void start() {
@@ -101,19 +284,25 @@ public class Profiler {
       totalActivationCount++;
       if (nestingLevel == 1) {
         activationCount++;
-        startTime = System.nanoTime();
       }
     }
 
-    private void stop() {
+    private void stop(boolean success, long elapsed, long self, long allocated, long selfAllocated) {
       if (nestingLevel == 1) {
-        elapsedNanoseconds += System.nanoTime() - startTime;
+        elapsedNanoseconds += elapsed;
+        allocatedBytes += allocated;
+      }
+      selfNanoseconds += self;
+      selfAllocatedBytes += selfAllocated;
+      if (!success) {
+        failureCount++;
       }
       nestingLevel--;
     }
 
     private Profile build() {
-      return new Profile(parser, activationCount, totalActivationCount, elapsedNanoseconds);
+      return new Profile(parser, name == null ? parser.toString() : name, activationCount, totalActivationCount, failureCount,
+          elapsedNanoseconds, selfNanoseconds, allocatedBytes, selfAllocatedBytes);
     }
   }
 
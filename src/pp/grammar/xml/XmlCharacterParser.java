@@ -3,17 +3,16 @@ package pp.grammar.xml;
 import petit.parser.PetitParser;
 import petit.parser.context.Context;
 import petit.parser.context.Result;
+import petit.parser.primitive.StringParser;
 
 import static petit.parser.primitive.CharacterParser.digit;
 import static petit.parser.primitive.CharacterParser.of;
 import static petit.parser.primitive.CharacterParser.pattern;
-import static petit.parser.primitive.CharacterParser.word;
 
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
 
 /**
  * Optimized parser to read character data.
@@ -301,10 +300,7 @@ public class XmlCharacterParser extends PetitParser {
 
   // named character reference
   private static final PetitParser ENTITY = of('&')
-      .seq(ENTITY_DIGIT.or(word()
-          .plus()
-          .flatten("Expected named character reference")
-          .map((Function<String, Character>) NAME_TO_CHAR::get)))
+      .seq(ENTITY_DIGIT.or(StringParser.anyOf(NAME_TO_CHAR, "Expected named character reference")))
       .seq(of(';'))
       .pick(1);
 
@@ -334,7 +330,7 @@ public class XmlCharacterParser extends PetitParser {
 
   @Override
   public Result parseOn(Context context) {
-    String input = context.getBuffer();
+    CharSequence input = context.getBuffer();
     StringBuilder output = new StringBuilder();
     int position = context.getPosition();
     int start = position;
@@ -367,7 +363,7 @@ public class XmlCharacterParser extends PetitParser {
   }
 
   @Override
-  public int fastParseOn(String buffer, int position) {
+  public int fastParseOn(CharSequence buffer, int position) {
     int start = position;
     int length = buffer.length();
     while (position < length) {
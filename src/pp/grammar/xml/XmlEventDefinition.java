@@ -0,0 +1,131 @@
+package pp.grammar.xml;
+
+import static petit.parser.primitive.StringParser.of;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+import petit.parser.primitive.EpsilonParser;
+
+/**
+ * XML grammar definition that reports events to a {@link XmlHandler}, instead of building a tree.
+ * <p>
+ * Children are not accumulated, so the memory used while parsing only grows with the nesting depth of the document.
+ * Events are reported as soon as the respective part of the document is recognized, so malformed input may produce a partial sequence of events before the parse fails.
+ */
+public class XmlEventDefinition extends XmlDefinition<String, Object, Object> {
+
+  public XmlEventDefinition(XmlHandler handler) {
+    super(new Events(handler));
+    redef("start", ref("document").end()
+        .mapWithSideEffects(value -> {
+          handler.endDocument();
+          return null;
+        }));
+    redef("attributes", new XmlSkipParser(ref("space")
+        .seq(ref("attribute"))));
+    redef("content", new XmlSkipParser(ref("characterData")
+        .or(ref("element"))
+        .or(ref("processing"))
+        .or(ref("comment"))
+        .or(ref("cdata"))));
+    redef("document", new EpsilonParser()
+        .mapWithSideEffects(value -> {
+          handler.startDocument();
+          return null;
+        })
+        .seq(ref("processing").optional())
+        .seq(ref("misc"))
+        .seq(ref("doctype").optional())
+        .seq(ref("misc"))
+        .seq(ref("element"))
+        .seq(ref("misc")));
+    redef("element", of(OPEN_ELEMENT)
+        .seq(ref("qualified"))
+        .mapWithSideEffects((List<String> list) -> {
+          handler.startElement(list.get(1));
+          return list.get(1);
+        })
+        .seq(ref("attributes"))
+        .seq(ref("space optional"))
+        .seq(of(CLOSE_END_ELEMENT).or(of(CLOSE_ELEMENT)
+            .seq(ref("content"))
+            .seq(of(OPEN_END_ELEMENT))
+            .seq(ref("qualified"))
+            .seq(ref("space optional"))
+            .seq(of(CLOSE_ELEMENT))))
+        .mapWithSideEffects((List<?> list) -> {
+          var name = (String) list.get(0);
+          if (list.get(3) instanceof List<?> end && !Objects.equals(name, end.get(3))) {
+            throw new IllegalStateException(
+                "Expected </" + name + ">, but found </" + end.get(3));
+          }
+          handler.endElement(name);
+          return null;
+        }));
+  }
+
+  /**
+   * Forwards the leaf nodes of the grammar to the handler.
+   */
+  private static class Events implements XmlCallback<String, Object, Object> {
+
+    private final XmlHandler handler;
+
+    private Events(XmlHandler handler) {
+      this.handler = Objects.requireNonNull(handler, "Undefined handler");
+    }
+
+    @Override
+    public Object createAttribute(String name, String text) {
+      handler.attribute(name, text);
+      return null;
+    }
+
+    @Override
+    public Object createComment(String text) {
+      handler.comment(text);
+      return null;
+    }
+
+    @Override
+    public Object createCDATA(String text) {
+      handler.cdata(text);
+      return null;
+    }
+
+    @Override
+    public Object createDoctype(String text) {
+      handler.doctype(text);
+      return null;
+    }
+
+    @Override
+    public Object createDocument(Collection<Object> children) {
+      return null;
+    }
+
+    @Override
+    public Object createElement(String name, Collection<Object> attributes, Collection<Object> children) {
+      return null;
+    }
+
+    @Override
+    public Object createProcessing(String target, String text) {
+      handler.processing(target, text);
+      return null;
+    }
+
+    @Override
+    public String createQualified(String name) {
+      return name;
+    }
+
+    @Override
+    public Object createText(String text) {
+      handler.text(text);
+      return null;
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package pp.grammar.xml;
+
+import petit.parser.tools.GrammarParser;
+
+/**
+ * XmlParser reporting events to a {@link XmlHandler}
+ */
+public class XmlEventParser extends GrammarParser {
+
+  public XmlEventParser(XmlHandler handler) {
+    super(new XmlEventDefinition(handler));
+  }
+}
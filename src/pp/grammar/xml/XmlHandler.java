@@ -0,0 +1,33 @@
+package pp.grammar.xml;
+
+/**
+ * Interface with event callbacks from the {@link XmlEventDefinition}.
+ * <p>
+ * Events are reported in document order while parsing, no tree is built.
+ * All callbacks do nothing by default.
+ */
+public interface XmlHandler {
+
+  default void startDocument() {}
+
+  default void endDocument() {}
+
+  /**
+   * Reports the start of an element, followed by the events of its attributes and of its content.
+   */
+  default void startElement(String name) {}
+
+  default void attribute(String name, String value) {}
+
+  default void endElement(String name) {}
+
+  default void text(String text) {}
+
+  default void cdata(String text) {}
+
+  default void comment(String text) {}
+
+  default void processing(String target, String text) {}
+
+  default void doctype(String text) {}
+}
@@ -0,0 +1,45 @@
+package pp.grammar.xml;
+
+import petit.parser.PetitParser;
+import petit.parser.combinators.DelegateParser;
+import petit.parser.context.Context;
+import petit.parser.context.Result;
+
+/**
+ * A parser that repeats its delegate as often as possible and discards the results, so that no list of children is accumulated.
+ */
+class XmlSkipParser extends DelegateParser {
+
+  XmlSkipParser(PetitParser delegate) {
+    super(delegate);
+  }
+
+  @Override
+  public Result parseOn(Context context) {
+    var current = context;
+    for (;;) {
+      var result = delegate.parseOn(current);
+      if (result.isFailure()) {
+        return current.success(null);
+      }
+      current = result;
+    }
+  }
+
+  @Override
+  public int fastParseOn(CharSequence buffer, int position) {
+    for (;;) {
+      var result = delegate.fastParseOn(buffer, position);
+      if (result < 0) {
+        return position;
+      }
+      position = result;
+    }
+  }
+
+  @Override
+  public XmlSkipParser copy() {
+    return new XmlSkipParser(delegate);
+  }
+
+}
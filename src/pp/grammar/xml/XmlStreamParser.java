@@ -0,0 +1,236 @@
+package pp.grammar.xml;
+
+import static petit.parser.primitive.StringParser.of;
+
+import java.io.Reader;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import petit.parser.PetitParser;
+import petit.parser.context.Context;
+import petit.parser.context.Failure;
+import petit.parser.context.ReaderInput;
+import petit.parser.context.Result;
+import petit.parser.context.Success;
+
+/**
+ * Parses XML documents incrementally from a {@link Reader} or a {@link ReadableByteChannel}.
+ * <p>
+ * The children of the document element are parsed one at a time, built through the {@link XmlCallback},
+ * and handed to a sink as soon as each of them is complete.
+ * Only a sliding window of the input is retained: it spans at most the child being parsed, and may grow up to {@code windowLimit} characters.
+ * <p>
+ * The resulting document holds the prolog nodes and the document element with its attributes, but without its children, as those have been passed to the sink.
+ */
+public class XmlStreamParser<TName, TNode, TAttribute> {
+
+  /**
+   * The default maximum size of the window, in characters.
+   */
+  public static final int DEFAULT_WINDOW_LIMIT = 1 << 24;
+
+  private final XmlCallback<TName, TNode, TAttribute> callback;
+  private final int windowLimit;
+
+  private final PetitParser start;
+  private final PetitParser content;
+  private final PetitParser end;
+  private final PetitParser trailer;
+
+  public XmlStreamParser(XmlCallback<TName, TNode, TAttribute> callback) {
+    this(callback, DEFAULT_WINDOW_LIMIT);
+  }
+
+  public XmlStreamParser(XmlCallback<TName, TNode, TAttribute> callback, int windowLimit) {
+    if (windowLimit < 1) {
+      throw new IllegalArgumentException("Invalid window limit: " + windowLimit);
+    }
+    this.callback = Objects.requireNonNull(callback, "Undefined callback");
+    this.windowLimit = windowLimit;
+    var definition = new XmlDefinition<>(callback);
+    this.start = definition.build("processing").optional()
+        .seq(definition.build("misc"))
+        .seq(definition.build("doctype").optional())
+        .seq(definition.build("misc"))
+        .seq(of(XmlDefinition.OPEN_ELEMENT))
+        .seq(definition.build("qualified"))
+        .seq(definition.build("attributes"))
+        .seq(definition.build("space optional"))
+        .seq(of(XmlDefinition.CLOSE_END_ELEMENT).or(of(XmlDefinition.CLOSE_ELEMENT)));
+    this.content = definition.build("characterData")
+        .or(definition.build("element"))
+        .or(definition.build("processing"))
+        .or(definition.build("comment"))
+        .or(definition.build("cdata"));
+    this.trailer = definition.build("misc").end();
+    this.end = of(XmlDefinition.OPEN_END_ELEMENT)
+        .seq(definition.build("qualified"))
+        .seq(definition.build("space optional"))
+        .seq(of(XmlDefinition.CLOSE_ELEMENT))
+        .seq(trailer);
+  }
+
+  /**
+   * Parses the {@code channel} decoded with {@code charset}, and passes the children of the document element to the {@code sink}.
+   */
+  public Result parse(ReadableByteChannel channel, Charset charset, Consumer<TNode> sink) {
+    return parse(ReaderInput.of(channel, charset), sink);
+  }
+
+  /**
+   * Parses the {@code reader}, and passes the children of the document element to the {@code sink}.
+   */
+  public Result parse(Reader reader, Consumer<TNode> sink) {
+    return parse(new ReaderInput(reader), sink);
+  }
+
+  /**
+   * Parses the {@code input}, and passes the children of the document element to the {@code sink}.
+   */
+  @SuppressWarnings("unchecked")
+  public Result parse(ReaderInput input, Consumer<TNode> sink) {
+    var result = step(start, input, input.getOffset());
+    if (result.isFailure()) {
+      return result;
+    }
+    List<?> prolog = result.get();
+    var name = (TName) prolog.get(5);
+    var attributes = (List<TAttribute>) prolog.get(6);
+    if (!Objects.equals(prolog.get(8), XmlDefinition.CLOSE_END_ELEMENT)) {
+      input.release(result.getPosition());
+      while (!isEndElement(input, result.getPosition())) {
+        result = step(content, input, result.getPosition());
+        if (result.isFailure()) {
+          return result;
+        }
+        sink.accept(result.get());
+        input.release(result.getPosition());
+      }
+      var position = result.getPosition();
+      result = step(end, input, position);
+      if (result.isFailure()) {
+        return result;
+      }
+      var other = ((List<?>) result.get()).get(1);
+      if (!Objects.equals(name, other)) {
+        return new Failure(input, position, "Expected </" + name + ">, but found </" + other + ">");
+      }
+    } else {
+      result = step(trailer, input, result.getPosition());
+      if (result.isFailure()) {
+        return result;
+      }
+    }
+    var children = new ArrayList<TNode>();
+    if (prolog.get(0) != null) {
+      children.add((TNode) prolog.get(0));
+    }
+    if (prolog.get(2) != null) {
+      children.add((TNode) prolog.get(2));
+    }
+    children.add(callback.createElement(name, attributes, Collections.emptyList()));
+    return new Success(input, result.getPosition(), callback.createDocument(children));
+  }
+
+  /**
+   * Parses a self-contained unit at {@code position}, loading more input while the unit reads past the end of the window.
+   * <p>
+   * Results that did not read past the end of the window, in particular syntax errors, are final and returned at once.
+   */
+  private Result step(PetitParser parser, ReaderInput input, int position) {
+    for (;;) {
+      Result result = null;
+      try {
+        result = parser.parseOn(new Context(new Window(input), position));
+      } catch (EndOfWindow e) {
+        // the unit is cut short by the end of the window
+      }
+      if (result != null && (input.isComplete() || result.isFailure() || result.getPosition() < input.length())) {
+        return result.isSuccess()
+            ? new Success(input, result.getPosition(), result.get())
+            : new Failure(input, result.getPosition(), result.getMessage());
+      }
+      if (input.length() - position >= windowLimit) {
+        return new Failure(input, position, "Window limit of " + windowLimit + " characters exceeded");
+      }
+      input.fill();
+    }
+  }
+
+  /**
+   * View of the loaded input that pretends to be unbounded while more input can be loaded,
+   * and aborts the parse with {@link EndOfWindow} when it reads past the loaded characters.
+   */
+  private static class Window implements CharSequence {
+
+    private final ReaderInput input;
+
+    private Window(ReaderInput input) {
+      this.input = input;
+    }
+
+    @Override
+    public int length() {
+      return input.isComplete() ? input.length() : Integer.MAX_VALUE;
+    }
+
+    @Override
+    public char charAt(int index) {
+      if (index >= input.length() && !input.isComplete()) {
+        throw EndOfWindow.INSTANCE;
+      }
+      return input.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      if (end > input.length() && !input.isComplete()) {
+        throw EndOfWindow.INSTANCE;
+      }
+      return input.subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+      return input.toString();
+    }
+  }
+
+  /**
+   * Signals a read past the end of the {@link Window}.
+   */
+  private static class EndOfWindow extends RuntimeException {
+
+    private static final EndOfWindow INSTANCE = new EndOfWindow();
+
+    private EndOfWindow() {
+      super(null, null, false, false);
+    }
+
+    private static final long serialVersionUID = 1L;
+  }
+
+  /**
+   * Tests if the end tag of an element starts at {@code position}, loading more input if needed.
+   */
+  private static boolean isEndElement(ReaderInput input, int position) {
+    var marker = XmlDefinition.OPEN_END_ELEMENT;
+    while (input.length() < position + marker.length()) {
+      if (!input.fill()) {
+        return false;
+      }
+    }
+    for (var i = 0; i < marker.length(); i++) {
+      if (input.charAt(position + i) != marker.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+}
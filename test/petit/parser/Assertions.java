@@ -1,6 +1,7 @@
 package petit.parser;
 
 import petit.parser.PetitParser;
+import petit.parser.context.MutableContext;
 import petit.parser.context.ParseError;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -21,6 +22,11 @@ public interface Assertions {
     assertNull(result.getMessage(), "No message expected");
     assertEquals(position, parser.fastParseOn(input, 0), "Fast parse");
     assertTrue(parser.accept(input), "Accept");
+    var context = new MutableContext(input);
+    assertTrue(parser.parseOn(context), "Expected mutable parse success");
+    assertEquals(position, context.getPosition(), "Mutable position");
+    assertEquals(expected, context.getValue(), "Mutable result");
+    assertEquals(0, context.mark(), "Mutable stack");
   }
 
   static <T> void assertFailure(PetitParser parser, String input) {
@@ -46,6 +52,11 @@ public interface Assertions {
     }
     assertEquals(-1, parser.fastParseOn(input, 0), "Expected fast parse failure");
     assertFalse(parser.accept(input), "Accept");
+    var context = new MutableContext(input);
+    assertFalse(parser.parseOn(context), "Expected mutable parse failure");
+    assertEquals(position, context.getPosition(), "Mutable position");
+    assertEquals(result.getMessage(), context.getMessage(), "Mutable message");
+    assertEquals(0, context.mark(), "Mutable stack");
     try {
       result.get();
     } catch (ParseError error) {
@@ -9,6 +9,7 @@ import petit.parser.combinators.DelegateParser;
 import petit.parser.primitive.CharacterParser;
 import petit.parser.primitive.EpsilonParser;
 import petit.parser.primitive.FailureParser;
+import petit.parser.primitive.SpanParser;
 import petit.parser.primitive.StringParser;
 
 import java.util.List;
@@ -16,7 +17,7 @@ import java.util.ArrayList;
 import java.util.function.Function;
 
 /**
- * Tests {@link PetitParser#copy}, {@link PetitParser#equals(Object)}, and {@link PetitParser#replace(PetitParser, PetitParser)}.
+ * Tests {@link PetitParser#copy}, {@link PetitParser#equals(Object)}, {@link PetitParser#structuralHash()}, and {@link PetitParser#replace(PetitParser, PetitParser)}.
  */
 class EqualityTest {
 
@@ -33,6 +34,7 @@ class EqualityTest {
     assertTrue(parser.isEqualTo(copy));
     assertTrue(copy.isEqualTo(parser));
     assertTrue(parser.isEqualTo(parser));
+    assertEquals(parser.structuralHash(), copy.structuralHash());
     // check replacing
     var replaced = new ArrayList<PetitParser>();
     for (var i = 0; i < copy.getChildren().size(); i++) {
@@ -96,6 +98,7 @@ class EqualityTest {
   @Test
   void continuation() {
     verify(CharacterParser.digit().callCC((continuation, context) -> null));
+    verify(CharacterParser.digit().callCC((continuation, context) -> null, (continuation, buffer, position) -> -1));
   }
 
   @Test
@@ -128,6 +131,11 @@ class EqualityTest {
     verify(CharacterParser.digit().map(Function.identity()));
   }
 
+  @Test
+  void memoize() {
+    verify(CharacterParser.digit().memoize());
+  }
+
   @Test
   void not() {
     verify(CharacterParser.digit().not());
@@ -208,6 +216,16 @@ class EqualityTest {
     verify(StringParser.ofIgnoringCase("ab"));
   }
 
+  @Test
+  void stringAnyOf() {
+    verify(StringParser.anyOf(List.of("ab", "abc")));
+  }
+
+  @Test
+  void span() {
+    verify(SpanParser.of(CharacterParser.digit(), 1, 3, SpanParser.Mode.FLATTEN));
+  }
+
   @Test
   void times() {
     verify(CharacterParser.digit().times(2));
@@ -0,0 +1,143 @@
+package petit.parser;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import static petit.parser.Assertions.*;
+import static petit.parser.primitive.CharacterParser.*;
+
+import petit.parser.PetitParser;
+import petit.parser.combinators.DelegateParser;
+import petit.parser.combinators.FrozenParser;
+import petit.parser.combinators.SettableParser;
+import petit.parser.utils.Mirror;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Tests {@link PetitParser#freeze()}.
+ */
+class FreezeTest {
+
+  /**
+   * Returns a grammar of nested lists of digits, such as {@code [1,[2,3]]}, that sums up the digits.
+   */
+  private static SettableParser nested() {
+    var list = SettableParser.undefined();
+    var element = digit().map((Character c) -> c - '0').or(list);
+    list.set(of('[')
+        .seq(element.separatedBy(of(',')).optional())
+        .seq(of(']'))
+        .map((List<Object> input) -> {
+          var sum = 0;
+          if (input.get(1) != null) {
+            for (var each : (List<?>) input.get(1)) {
+              if (each instanceof Integer value) {
+                sum += value;
+              }
+            }
+          }
+          return sum;
+        })
+        .memoize());
+    return list;
+  }
+
+  @Test
+  void testFreeze() {
+    var parser = nested();
+    var frozen = parser.freeze();
+    assertTrue(frozen.isFrozen());
+    assertFalse(parser.isFrozen());
+    assertSuccess(frozen, "[]", 0);
+    assertSuccess(frozen, "[1,[2,[3]],4]", 10);
+    assertFailure(frozen, "[1,", 2, "']' expected");
+    assertFailure(parser, "[1,", 2, "']' expected");
+    assertTrue(frozen.isEqualTo(frozen.freeze()));
+    assertSame(frozen, frozen.freeze());
+  }
+
+  @Test
+  void testFreezeResolvesSettables() {
+    var parser = nested();
+    var frozen = parser.freeze();
+    for (var each : Mirror.of(frozen)) {
+      assertFalse(each instanceof SettableParser, each.toString());
+      assertTrue(each.isFrozen(), each.toString());
+    }
+    for (var each : Mirror.of(parser)) {
+      assertFalse(each.isFrozen(), each.toString());
+    }
+  }
+
+  @Test
+  void testFreezeRejectsModifications() {
+    var settable = of('a').settable();
+    var frozen = settable.seq(settable.settable()).freeze();
+    var sequence = frozen.getChildren().get(0);
+    assertThrows(IllegalStateException.class, () -> sequence.replace(sequence.getChildren().get(0), of('b')));
+    assertThrows(IllegalStateException.class, () -> frozen.replace(sequence, of('b')));
+    assertThrows(UnsupportedOperationException.class, () -> sequence.getChildren().set(0, of('b')));
+    var cycle = SettableParser.undefined();
+    cycle.set(cycle);
+    var frozenCycle = (SettableParser) cycle.freeze().getChildren().get(0);
+    assertThrows(IllegalStateException.class, () -> frozenCycle.set(of('b')));
+    assertSuccess(frozen, "aa", List.of('a', 'a'));
+  }
+
+  @Test
+  void testFreezeCopy() {
+    var frozen = of('a').star().freeze();
+    var copy = frozen.copy();
+    assertEquals(DelegateParser.class, copy.getClass());
+    assertFalse(copy.isFrozen());
+    copy.replace(copy.getChildren().get(0), of('b'));
+    assertSuccess(copy, "b", 'b');
+    assertFalse(Mirror.of(frozen).transform(parser -> parser).isFrozen());
+    assertThrows(IllegalArgumentException.class, () -> new FrozenParser(of('a')));
+  }
+
+  @Test
+  void testFreezeConcurrently() throws Exception {
+    var frozen = nested().freeze();
+    var inputs = new ArrayList<String>();
+    var expected = new ArrayList<Integer>();
+    for (var i = 0; i < 100; i++) {
+      var buffer = new StringBuilder();
+      var sum = 0;
+      for (var j = 0; j <= i % 10; j++) {
+        buffer.append(j == 0 ? "[" : ",[").append(j % 10);
+        sum += j % 10;
+      }
+      buffer.append("]".repeat(i % 10 + 1));
+      inputs.add(buffer.toString());
+      expected.add(sum);
+    }
+    var executor = Executors.newFixedThreadPool(16);
+    try {
+      var tasks = new ArrayList<Callable<Boolean>>();
+      for (var task = 0; task < 64; task++) {
+        var offset = task;
+        tasks.add(() -> {
+          for (var i = 0; i < 1000; i++) {
+            var index = (offset + i) % inputs.size();
+            var result = frozen.parse(inputs.get(index));
+            if (!result.isSuccess() || !expected.get(index).equals(result.get())) {
+              return false;
+            }
+          }
+          return true;
+        });
+      }
+      for (Future<Boolean> future : executor.invokeAll(tasks)) {
+        assertTrue(future.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+}
@@ -7,8 +7,10 @@ import static petit.parser.primitive.CharacterParser.*;
 
 import petit.parser.PetitParser;
 import petit.parser.combinators.ChoiceParser;
+import petit.parser.combinators.MemoTable;
 import petit.parser.context.Context;
 import petit.parser.context.Failure;
+import petit.parser.context.MutableContext;
 import petit.parser.context.Result;
 import petit.parser.context.Token;
 import petit.parser.primitive.CharacterParser;
@@ -251,6 +253,74 @@ class ParsersTest {
     assertFailure(parser, "12", 1, "letter expected");
   }
 
+  @Test
+  void testMemoize() {
+    var activations = new int[1];
+    var parser = of('a').plus().callCC((continuation, context) -> {
+      activations[0]++;
+      return continuation.apply(context);
+    }).memoize();
+    var root = parser.seq(of('b')).or(parser.seq(of('c'))).memoize();
+    assertSuccess(root, "aac", Arrays.asList(Arrays.asList('a', 'a'), 'c'));
+    assertFailure(root, "aad", 2, "'c' expected");
+    activations[0] = 0;
+    root.parse("aaac");
+    assertEquals(1, activations[0]);
+  }
+
+  @Test
+  void testMemoizeBelowRoot() {
+    var activations = new int[1];
+    var parser = of('a').plus().callCC((continuation, context) -> {
+      activations[0]++;
+      return continuation.apply(context);
+    }, (continuation, buffer, position) -> {
+      activations[0]++;
+      return continuation.apply(buffer, position);
+    }).memoize();
+    var root = of('x').or(parser.seq(of('b')), parser.seq(of('c'))).end();
+    assertSuccess(root, "aac", Arrays.asList(Arrays.asList('a', 'a'), 'c'));
+    activations[0] = 0;
+    assertTrue(root.parse("aaac").isSuccess());
+    assertEquals(1, activations[0]);
+    assertTrue(root.parse(new MutableContext("aaac", 0)).isSuccess());
+    assertEquals(2, activations[0]);
+    assertTrue(root.accept("aaac"));
+    assertEquals(3, activations[0]);
+    assertFalse(root.accept("aaad"));
+    assertEquals(4, activations[0]);
+  }
+
+  @Test
+  void testMemoizeNestedParse() {
+    var activations = new int[1];
+    var inner = of('a').plus().memoize().end();
+    var parser = of('a').plus().callCC((continuation, context) -> {
+      activations[0]++;
+      return continuation.apply(context);
+    }).memoize();
+    var nested = new ArrayList<Object>();
+    var root = parser.mapWithSideEffects(value -> {
+      nested.add(inner.parse("aaaaa").get());
+      return value;
+    }).seq(of('b')).or(parser.seq(of('c')));
+    assertSuccess(root, "aac", Arrays.asList(Arrays.asList('a', 'a'), 'c'));
+    activations[0] = 0;
+    nested.clear();
+    assertEquals(Arrays.asList(Arrays.asList('a', 'a', 'a'), 'c'), root.parse("aaac").get());
+    assertEquals(1, activations[0]);
+    assertEquals(List.of(List.of('a', 'a', 'a', 'a', 'a')), nested);
+  }
+
+  @Test
+  void testMemoizeSharedTable() {
+    var table = new MemoTable(2);
+    var parser = of('a').memoize(table).seq(of('b').memoize(table)).star().memoize(table);
+    assertSuccess(parser, "abab", Arrays.asList(Arrays.asList('a', 'b'), Arrays.asList('a', 'b')));
+    assertFailure(parser.end(), "aba", 2, "end of input expected");
+    assertSame(table, parser.getTable());
+  }
+
   @Test
   void testNeg1() {
     var parser = CharacterParser.digit().neg();
@@ -654,6 +724,34 @@ class ParsersTest {
     assertTrue(parser.parse("a").isSuccess());
   }
 
+  @Test
+  void testContinuationFast() {
+    var slow = new int[1];
+    var fast = new int[1];
+    var parser = CharacterParser.digit().plus().callCC((continuation, context) -> {
+      slow[0]++;
+      return continuation.apply(context);
+    }, (continuation, buffer, position) -> {
+      fast[0]++;
+      return continuation.apply(buffer, position);
+    });
+    assertTrue(parser.accept("12"));
+    assertFalse(parser.accept("a"));
+    assertEquals(2, parser.fastParseOn("12a", 0));
+    assertEquals(0, slow[0]);
+    assertEquals(3, fast[0]);
+    assertTrue(parser.parse("12").isSuccess());
+    assertEquals(1, slow[0]);
+    assertEquals(3, fast[0]);
+  }
+
+  @Test
+  void testContinuationFastFallback() {
+    var parser = CharacterParser.digit().callCC((continuation, context) -> context.success("Always succeed"));
+    assertTrue(parser.accept("a"));
+    assertEquals(0, parser.fastParseOn("a", 0));
+  }
+
   @Test
   void testContinuationFailing() {
     var parser = CharacterParser.digit().callCC((continuation, context) -> context.failure("Always fail"));
@@ -3,11 +3,15 @@ package petit.parser;
 import org.junit.jupiter.api.Test;
 
 import petit.parser.PetitParser;
+import petit.parser.context.Failure;
+import petit.parser.context.MutableContext;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static petit.parser.primitive.CharacterParser.*;
 
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * Tests {@link PetitParser} parsing.
@@ -21,6 +25,51 @@ class ParsingTest {
     assertFalse(parser.parse("b").isSuccess());
   }
 
+  @Test
+  void testParseMutable() {
+    var parser = of('a').plus().seq(digit().star().flatten());
+    var context = new MutableContext("aa12");
+    var success = parser.parse(context);
+    assertTrue(success.isSuccess());
+    assertEquals(Arrays.asList(Arrays.asList('a', 'a'), "12"), success.get());
+    assertEquals(4, success.getPosition());
+    var failure = parser.parse(context.reset("b", 0));
+    assertTrue(failure.isFailure());
+    assertEquals("'a' expected", failure.getMessage());
+    assertEquals(0, failure.getPosition());
+  }
+
+  @Test
+  void testLazyFailureMessage() {
+    var renders = new AtomicInteger();
+    var failure = new Failure("a", 0, () -> renders.incrementAndGet() + " expected");
+    assertEquals(0, renders.get());
+    assertEquals("1 expected", failure.getMessage());
+    assertEquals("1 expected", failure.getMessage());
+    assertEquals(1, renders.get());
+    var context = new MutableContext("a");
+    assertFalse(context.failure(() -> renders.incrementAndGet() + " expected"));
+    assertTrue(context.isFailure());
+    assertEquals(1, renders.get());
+    assertEquals("2 expected", context.toFailure().getMessage());
+    assertEquals(2, renders.get());
+  }
+
+  @Test
+  void testFailureWithoutMessage() {
+    var context = new MutableContext("a");
+    assertFalse(context.failure((String) null));
+    assertTrue(context.isFailure());
+    assertTrue(context.toResult().isFailure());
+    assertTrue(context.success('a'));
+    assertFalse(context.failure((Supplier<String>) null));
+    assertTrue(context.isFailure());
+    assertFalse(context.failure(() -> null));
+    assertNull(context.getMessage());
+    assertTrue(context.isFailure());
+    assertTrue(context.reset("b", 0).isSuccess());
+  }
+
   @Test
   void testAccepts() {
     var parser = of('a');
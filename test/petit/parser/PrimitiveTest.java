@@ -1,11 +1,17 @@
 package petit.parser;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static petit.parser.Assertions.*;
 
+import java.util.List;
+import java.util.Map;
+
 import org.junit.jupiter.api.Test;
 
+import petit.parser.primitive.CharacterParser;
 import petit.parser.primitive.EpsilonParser;
 import petit.parser.primitive.FailureParser;
+import petit.parser.primitive.SpanParser;
 import petit.parser.primitive.StringParser;
 
 /**
@@ -69,4 +75,52 @@ class PrimitiveTest {
     assertFailure(parser, "Fo", "wrong");
   }
 
+  @Test
+  void testStringOnCharSequence() {
+    var parser = StringParser.of("foo");
+    var ignoringCase = StringParser.ofIgnoringCase("foo");
+    var buffer = new StringBuilder("xfOo");
+    assertEquals(-1, parser.fastParseOn(buffer, 1));
+    assertEquals(4, ignoringCase.fastParseOn(buffer, 1));
+    assertEquals(-1, ignoringCase.fastParseOn(buffer, 2));
+    assertEquals("fOo", ignoringCase.parse(buffer.delete(0, 1)).get());
+    assertEquals("foo", parser.parse(buffer.replace(0, 3, "foo")).get());
+  }
+
+  @Test
+  void testStringAnyOf() {
+    var parser = StringParser.anyOf(List.of("do", "double", "dou", "for"));
+    assertSuccess(parser, "do", "do");
+    assertSuccess(parser, "double", "double");
+    assertSuccess(parser, "doubles", "double", 6);
+    assertSuccess(parser, "doubt", "dou", 3);
+    assertSuccess(parser, "for", "for");
+    assertFailure(parser, "", "one of [do, double, dou, for] expected");
+    assertFailure(parser, "d", "one of [do, double, dou, for] expected");
+    assertFailure(parser, "fo", 0);
+  }
+
+  @Test
+  void testStringAnyOfWithValues() {
+    var parser = StringParser.anyOf(Map.of("lt", '<', "gt", '>', "amp", '&'), "wrong");
+    assertSuccess(parser, "lt", '<');
+    assertSuccess(parser, "amp;", '&', 3);
+    assertFailure(parser, "quot", "wrong");
+  }
+
+  @Test
+  void testSpan() {
+    var parser = SpanParser.of(CharacterParser.digit(), 2, 3, SpanParser.Mode.COUNT);
+    assertSuccess(parser, "12", 2);
+    assertSuccess(parser, "1234", 3, 3);
+    assertFailure(parser, "1a", 1, "digit expected");
+    assertFailure(parser, "", 0, "digit expected");
+    var list = SpanParser.of(CharacterParser.letter(), 0, -1, SpanParser.Mode.LIST);
+    assertSuccess(list, "ab1", List.of('a', 'b'), 2);
+    assertSuccess(list, "", List.of());
+    var flatten = SpanParser.of(CharacterParser.letter(), 1, -1, SpanParser.Mode.FLATTEN, "word expected");
+    assertSuccess(flatten, "ab1", "ab", 2);
+    assertFailure(flatten, "1", 0, "word expected");
+  }
+
 }
@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import static petit.parser.primitive.CharacterParser.any;
 
 import petit.parser.PetitParser;
+import petit.parser.context.LineIndex;
 import petit.parser.context.Token;
 
 import java.util.List;
@@ -75,6 +76,28 @@ class TokenTest {
     assertArrayEquals(expected, actual);
   }
 
+  @Test
+  void testLineIndex() {
+    var index = LineIndex.of(buffer);
+    assertSame(index, LineIndex.of(buffer));
+    assertNotSame(index, LineIndex.of(new String(buffer)));
+    var mutable = new StringBuilder(buffer);
+    assertEquals(4, LineIndex.of(mutable).getLineCount());
+    mutable.append("\n12345");
+    assertEquals(5, LineIndex.of(mutable).getLineCount());
+    assertArrayEquals(new int[]{ 5, 3 }, Token.lineAndColumnOf(mutable, mutable.length() - 3));
+    assertEquals(4, index.getLineCount());
+    var lines = new int[]{ 1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 4, 4, 4, 4, 4 };
+    var columns = new int[]{ 1, 2, 1, 2, 3, 4, 1, 2, 3, 4, 1, 2, 3, 4, 5 };
+    for (var i = 0; i <= buffer.length(); i++) {
+      assertEquals(lines[i], index.lineOf(i));
+      assertEquals(columns[i], index.columnOf(i));
+      assertArrayEquals(new int[]{ lines[i], columns[i] }, Token.lineAndColumnOf(buffer, i));
+    }
+    assertArrayEquals(new int[]{ 1, 1 }, Token.lineAndColumnOf("", 0));
+    assertArrayEquals(new int[]{ 3, 1 }, Token.lineAndColumnOf("\n\r\n", 3));
+  }
+
   @Test
   void testString() {
     var expected = new Object[]{ "Token[1:1]: 49", "Token[1:2]: 13", "Token[2:1]: 49", "Token[2:2]: 50","Token[2:3]: 13", "Token[2:4]: 10", "Token[3:1]: 49", "Token[3:2]: 50", "Token[3:3]: 51", "Token[3:4]: 10", "Token[4:1]: 49", "Token[4:2]: 50", "Token[4:3]: 51", "Token[4:4]: 52" };
@@ -0,0 +1,93 @@
+package petit.parser.context;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import static petit.parser.primitive.CharacterParser.*;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests {@link MappedInput}.
+ */
+class MappedInputTest {
+
+  @TempDir
+  Path directory;
+
+  MappedInput input(String content, Charset charset) throws IOException {
+    var file = directory.resolve("input.txt");
+    Files.writeString(file, content, charset);
+    return MappedInput.of(file, charset);
+  }
+
+  void assertContent(String expected, CharSequence actual) {
+    assertEquals(expected.length(), actual.length());
+    for (var i = 0; i < expected.length(); i++) {
+      assertEquals(expected.charAt(i), actual.charAt(i), "at " + i);
+    }
+    for (var i = expected.length() - 1; i >= 0; i -= 7) {
+      assertEquals(expected.charAt(i), actual.charAt(i), "at " + i);
+    }
+    assertEquals(expected, actual.toString());
+    assertEquals(expected.substring(1, expected.length() - 1), actual.subSequence(1, expected.length() - 1).toString());
+    assertThrows(IndexOutOfBoundsException.class, () -> actual.charAt(expected.length()));
+  }
+
+  @Test
+  void testLatin1() throws IOException {
+    var content = "café naïve\r\nline 2";
+    assertContent(content, input(content, StandardCharsets.ISO_8859_1));
+  }
+
+  @Test
+  void testUtf8() throws IOException {
+    var builder = new StringBuilder();
+    for (var i = 0; i < 5000; i++) {
+      builder.append(i % 3 == 0 ? "a" : i % 3 == 1 ? "é€" : "😀");
+    }
+    var content = builder.toString();
+    assertContent(content, input(content, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void testUtf8TrailingBlockBoundary() throws IOException {
+    var content = "a".repeat(1023) + "😀";
+    var actual = input(content, StandardCharsets.UTF_8);
+    assertEquals(1025, actual.length());
+    assertEquals(Character.lowSurrogate(0x1f600), actual.charAt(1024));
+    assertEquals(Character.highSurrogate(0x1f600), actual.charAt(1023));
+    assertContent(content, input(content, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void testEmpty() throws IOException {
+    assertEquals(0, input("", StandardCharsets.UTF_8).length());
+    assertEquals(0, input("", StandardCharsets.US_ASCII).length());
+  }
+
+  @Test
+  void testUnsupported() {
+    assertThrows(IllegalArgumentException.class, () -> input("", StandardCharsets.UTF_16));
+  }
+
+  @Test
+  void testParse() throws IOException {
+    var input = input("ab 12\ncd 345", StandardCharsets.UTF_8);
+    var parser = letter().plus().flatten().token().trim().star().end();
+    assertFalse(parser.accept(input));
+    var words = word().plus().flatten().token().trim().star().end();
+    List<Token> tokens = words.parse(input).get();
+    assertEquals(Arrays.asList("ab", "12", "cd", "345"), tokens.stream().map(Token::getValue).toList());
+    assertSame(input, tokens.get(0).getBuffer());
+    assertEquals(2, tokens.get(3).getLine());
+    assertEquals(4, tokens.get(3).getColumn());
+  }
+
+}
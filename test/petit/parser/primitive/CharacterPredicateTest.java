@@ -211,4 +211,19 @@ class CharacterPredicateTest {
     assertFalse(predicate.test('p'));
   }
 
+  @Test
+  void testCompile() {
+    var predicates = new CharacterPredicate[] {
+        CharacterPredicate.any(), CharacterPredicate.none(), CharacterPredicate.noneOf("uncopyrightable"),
+        CharacterPredicate.pattern("^a-z\u00e0-\u00ff\u4e00-\u9fff"), Character::isLetter, Character::isWhitespace };
+    for (var predicate : predicates) {
+      var compiled = CharacterPredicate.compile(predicate);
+      assertSame(compiled, CharacterPredicate.compile(compiled));
+      assertSame(predicate, compiled.getPredicate());
+      for (var c = 0; c <= Character.MAX_VALUE; c++) {
+        assertEquals(predicate.test((char) c), compiled.test((char) c));
+      }
+    }
+  }
+
 }
@@ -4,12 +4,17 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
 import petit.parser.PetitParser;
+import petit.parser.combinators.LeftRecursiveParser;
+import petit.parser.context.MutableContext;
 import petit.parser.primitive.EpsilonParser;
 import petit.parser.tools.GrammarDefinition;
 import petit.parser.tools.GrammarParser;
+import petit.parser.utils.Mirror;
+import pp.grammar.json.JsonParserDefinition;
 import static petit.parser.primitive.CharacterParser.*;
 
 import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 import java.util.function.Function;
 
@@ -70,6 +75,25 @@ class GrammarDefinitionTest {
     }
   }
 
+  class LeftRecursiveGrammarDefinition extends GrammarDefinition {
+    LeftRecursiveGrammarDefinition() {
+      def("start", ref("expression").end());
+      def("expression", ref("expression").seq(of('-')).seq(ref("term"))
+          .map((List<Integer> input) -> input.get(0) - input.get(2)).or(ref("term")));
+      def("term", ref("term").seq(of('/')).seq(ref("number"))
+          .map((List<Integer> input) -> input.get(0) / input.get(2)).or(ref("number")).memoize());
+      def("number", digit().plus().flatten().map((Function<String, Integer>) Integer::parseInt));
+    }
+  }
+
+  class IndirectLeftRecursiveGrammarDefinition extends GrammarDefinition {
+    IndirectLeftRecursiveGrammarDefinition() {
+      def("start", ref("first").end());
+      def("first", ref("second").seq(of('x')).flatten().or(of('y')));
+      def("second", ref("first").or(of('z')));
+    }
+  }
+
   final GrammarDefinition grammarDefinition = new ListGrammarDefinition();
   final GrammarDefinition parserDefinition = new ListParserDefinition();
   final GrammarDefinition buggedDefinition = new BuggedGrammarDefinition();
@@ -208,4 +232,71 @@ class GrammarDefinitionTest {
     assertTrue(parser.accept("(1 + 2) * 3"));
   }
 
+  @Test
+  void testLeftRecursiveGrammar() {
+    var grammar = new LeftRecursiveGrammarDefinition().build();
+    assertEquals(Integer.valueOf(1), grammar.parse("1").get());
+    assertEquals(Integer.valueOf(5), grammar.parse("8-2-1").get());
+    assertEquals(Integer.valueOf(2), grammar.parse("16/4/2").get());
+    assertEquals(Integer.valueOf(3), grammar.parse("9-16/4/2-4").get());
+    assertTrue(grammar.accept("1-2"));
+    assertFalse(grammar.accept("1-"));
+    assertFalse(grammar.accept("-1"));
+    var context = new MutableContext("9-16/4/2-4");
+    assertTrue(grammar.parseOn(context));
+    assertEquals(Integer.valueOf(3), context.getValue());
+    assertEquals(10, grammar.fastParseOn("9-16/4/2-4", 0));
+  }
+
+  @Test
+  void testLeftRecursiveGrammarLongInput() {
+    var grammar = new LeftRecursiveGrammarDefinition().build();
+    var input = "10000" + "-1".repeat(10000);
+    assertEquals(Integer.valueOf(0), grammar.parse(input).get());
+    assertTrue(grammar.accept(input));
+  }
+
+  @Test
+  void testIndirectLeftRecursiveGrammar() {
+    var grammar = new IndirectLeftRecursiveGrammarDefinition().build();
+    assertEquals("yxx", grammar.parse("yxx").get());
+    assertEquals("zx", grammar.parse("zx").get());
+    assertTrue(grammar.accept("yxx"));
+    assertEquals('y', grammar.parse("y").<Character>get());
+    assertFalse(grammar.accept("x"));
+    assertFalse(grammar.accept("z"));
+  }
+
+  @Test
+  void testPlainGrammarIsNotLeftRecursive() {
+    var activations = new int[1];
+    var definition = new JsonParserDefinition() {
+      {
+        action("array", (List<?> input) -> {
+          activations[0]++;
+          return input;
+        });
+      }
+    };
+    var parser = definition.build();
+    assertEquals(0, Mirror.of(parser).stream().filter(each -> each instanceof LeftRecursiveParser).count());
+    assertEquals(List.of(List.of(), List.of(List.of())), parser.parse("[[], [[]]]").get());
+    assertEquals(4, activations[0]);
+  }
+
+  @Test
+  void testTrailingRecursionIsNotLeftRecursive() {
+    var definition = new GrammarDefinition() {
+      {
+        def("start", ref("list").end());
+        def("list", of('a').trim(of(' '), ref("list")));
+      }
+    };
+    var parser = definition.build();
+    assertEquals(0, Mirror.of(parser).stream().filter(each -> each instanceof LeftRecursiveParser).count());
+    assertTrue(parser.accept(" a a a"));
+    assertTrue(parser.accept("a"));
+    assertFalse(parser.accept("b"));
+  }
+
 }
@@ -0,0 +1,129 @@
+package petit.parser.tools;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import petit.parser.PetitParser;
+import petit.parser.combinators.MemoParser;
+import petit.parser.utils.Backtracking;
+import petit.parser.utils.Mirror;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static petit.parser.primitive.CharacterParser.digit;
+import static petit.parser.primitive.CharacterParser.of;
+
+/**
+ * Tests {@link MemoizationPlan}.
+ */
+class MemoizationPlanTest {
+
+  static class ListDefinition extends GrammarDefinition {
+    ListDefinition() {
+      def("start", ref("list").end());
+      def("list", ref("element").seq(of(','), ref("list")).or(ref("element")));
+      def("element", digit().plus().flatten());
+    }
+  }
+
+  private static final List<String> CORPUS = List.of("1,2,3", "12,345", "6");
+
+  private static List<String> memoized(PetitParser parser, GrammarDefinition definition) {
+    return Mirror.of(parser).stream()
+        .filter(each -> each instanceof MemoParser)
+        .map(each -> definition.nameOf(each.getChildren().get(0)))
+        .toList();
+  }
+
+  @Test
+  void testOfReport() {
+    var definition = new ListDefinition();
+    var report = Backtracking.analyze(definition.build(), definition::nameOf, CORPUS);
+    assertEquals(Set.of("element"), MemoizationPlan.of(report, 0.1).getProductions());
+    assertEquals(Set.of(), MemoizationPlan.of(report, 0.9).getProductions());
+  }
+
+  @Test
+  void testBuild() {
+    var definition = new ListDefinition();
+    var plan = new MemoizationPlan(List.of("element", "unknown"));
+    var parser = definition.build(plan);
+    assertEquals(List.of("element"), memoized(parser, definition));
+    var unplanned = new ListDefinition().build();
+    assertEquals(List.of(), memoized(unplanned, definition));
+    for (var input : CORPUS) {
+      assertEquals(unplanned.parse(input).<Object>get(), parser.parse(input).get());
+    }
+    assertTrue(parser.parse("1,").isFailure());
+    var report = Backtracking.analyze(parser, definition::nameOf, CORPUS);
+    assertEquals(0, report.getEntry("element").redundant());
+  }
+
+  @Test
+  void testBuildOrder() {
+    var plan = new MemoizationPlan(List.of("list", "element"));
+    var definition = new ListDefinition();
+    var parser = definition.build();
+    assertSame(parser, definition.build());
+    var planned = definition.build(plan);
+    assertEquals(Set.of("list", "element"), Set.copyOf(memoized(planned, definition)));
+    assertEquals(List.of(), memoized(definition.build(), definition));
+    assertEquals(List.of("element"), memoized(definition.build(new MemoizationPlan(List.of("element"))), definition));
+    assertEquals(parser.parse("1,2,3").<Object>get(), planned.parse("1,2,3").get());
+    var reversed = new ListDefinition();
+    planned = reversed.build(plan);
+    assertEquals(Set.of("list", "element"), Set.copyOf(memoized(planned, reversed)));
+    assertEquals(List.of(), memoized(reversed.build(), reversed));
+    assertEquals(List.of(), memoized(reversed.build("list"), reversed));
+    assertEquals(reversed.build().parse("1,2,3").<Object>get(), planned.parse("1,2,3").get());
+  }
+
+  @Test
+  void testBuildLeftRecursive() {
+    var definition = new GrammarDefinition() {
+      {
+        def("start", ref("list").end());
+        def("list", ref("list").seq(of(','), ref("element")).or(ref("element")));
+        def("element", digit().plus().flatten());
+      }
+    };
+    var plan = new MemoizationPlan(List.of("list", "element"));
+    var parser = definition.build(plan);
+    assertEquals(2, Mirror.of(parser).stream().filter(each -> each instanceof MemoParser).count());
+    assertEquals(2, Mirror.of(definition.build(plan)).stream().filter(each -> each instanceof MemoParser).count());
+    assertEquals(1, Mirror.of(definition.build()).stream().filter(each -> each instanceof MemoParser).count());
+    assertEquals("[[1, ,, 2], ,, 3]", parser.parse("1,2,3").get().toString());
+  }
+
+  @Test
+  void testApply() {
+    var definition = new ListDefinition();
+    var source = definition.build();
+    var plan = new MemoizationPlan(List.of("list", "element"));
+    var parser = plan.apply(source, definition::nameOf);
+    assertEquals(2, Mirror.of(parser).stream().filter(each -> each instanceof MemoParser).count());
+    assertEquals(0, Mirror.of(source).stream().filter(each -> each instanceof MemoParser).count());
+    assertFalse(parser instanceof MemoParser);
+    assertEquals(0, Mirror.of(new MemoizationPlan(List.of()).apply(source, definition::nameOf)).stream().filter(each -> each instanceof MemoParser).count());
+    assertEquals(source.parse("1,2,3").<Object>get(), parser.parse("1,2,3").get());
+  }
+
+  @Test
+  void testSaveAndLoad(@TempDir Path directory) throws IOException {
+    var plan = new MemoizationPlan(List.of("list", "element"));
+    var path = directory.resolve("memoization.txt");
+    plan.save(path);
+    assertEquals(List.of("element", "list"), Files.readAllLines(path));
+    assertEquals(plan, MemoizationPlan.load(path));
+    Files.write(path, List.of("# selected productions", "", "  element  "));
+    assertEquals(Set.of("element"), MemoizationPlan.load(path).getProductions());
+    assertTrue(MemoizationPlan.load(path).contains("element"));
+    assertFalse(MemoizationPlan.load(path).contains("list"));
+  }
+
+}
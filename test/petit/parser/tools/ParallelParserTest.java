@@ -0,0 +1,52 @@
+package petit.parser.tools;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import petit.parser.PetitParser;
+import petit.parser.context.Result;
+import static petit.parser.primitive.CharacterParser.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Tests {@link ParallelParser}.
+ */
+class ParallelParserTest {
+
+  private final PetitParser record = digit().plus().flatten().separatedBy(of(',')).memoize();
+
+  @Test
+  void testSplit() {
+    var parser = new ParallelParser(record);
+    assertArrayEquals(new int[] { 0, 3, 4, 7, 10, 11 }, parser.split("1,2\n3,4\r\n\n5"));
+    assertArrayEquals(new int[] { 0, 1 }, parser.split("1\n"));
+    assertArrayEquals(new int[0], parser.split(""));
+    assertArrayEquals(new int[] { 0, 1, 2, 3 }, new ParallelParser(record, of(';')).split("1;2"));
+  }
+
+  @Test
+  void testParse() {
+    var results = new ParallelParser(record).parse("1,2\n3\n\nx\n4,5").toList();
+    assertEquals(4, results.size());
+    assertEquals(List.of("1", ',', "2"), results.get(0).<Object>get());
+    assertEquals(List.of("3"), results.get(1).<Object>get());
+    assertTrue(results.get(2).isFailure());
+    assertEquals(List.of("4", ',', "5"), results.get(3).<Object>get());
+  }
+
+  @Test
+  void testOrder() {
+    var input = new StringBuilder();
+    for (var i = 0; i < 10000; i++) {
+      input.append(i).append(',').append(i % 7).append('\n');
+    }
+    var expected = input.toString().lines().map(line -> record.end().parse(line)).map(Result::toString).collect(Collectors.toList());
+    for (var repeat = 0; repeat < 5; repeat++) {
+      var actual = new ParallelParser(record).parse(input.toString()).map(Result::toString).toList();
+      assertEquals(expected, actual);
+    }
+  }
+
+}
@@ -0,0 +1,69 @@
+package petit.parser.utils;
+
+import org.junit.jupiter.api.Test;
+
+import petit.parser.tools.GrammarDefinition;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static petit.parser.primitive.CharacterParser.digit;
+import static petit.parser.primitive.CharacterParser.of;
+
+/**
+ * Tests {@link Backtracking}.
+ */
+class BacktrackingTest {
+
+  static class ListDefinition extends GrammarDefinition {
+    ListDefinition() {
+      def("start", ref("list").end());
+      def("list", ref("element").seq(of(','), ref("list")).or(ref("element")));
+      def("element", digit().plus().flatten());
+    }
+  }
+
+  @Test
+  void testRedundantEvaluations() {
+    var definition = new ListDefinition();
+    var report = Backtracking.analyze(definition.build(), definition::nameOf, List.of("1,2,3", "12,345", "x"));
+    assertEquals(3, report.getInputs());
+    var element = report.getEntry("element");
+    assertEquals(4 + 3 + 2, element.evaluations());
+    assertEquals(3, element.redundant());
+    assertEquals(1 + 3 + 0, element.wasted());
+    assertEquals(2, element.failures());
+    var list = report.getEntry("list");
+    assertEquals(3 + 2 + 1, list.evaluations());
+    assertEquals(0, list.redundant());
+    assertEquals(0.0, list.redundancy());
+    assertNull(report.getEntry("unknown"));
+  }
+
+  @Test
+  void testChoiceAlternatives() {
+    var definition = new ListDefinition();
+    var report = Backtracking.analyze(definition.build(), definition::nameOf, List.of("1,2,3"));
+    var list = report.getEntry("list");
+    assertArrayEquals(new long[] {3, 1}, list.reached());
+    assertArrayEquals(new long[] {2, 1}, list.succeeded());
+    assertArrayEquals(new long[0], report.getEntry("element").reached());
+  }
+
+  @Test
+  void testRecommendations() {
+    var definition = new ListDefinition();
+    var report = Backtracking.analyze(definition.build(), definition::nameOf, List.of("1,2,3", "12,345"));
+    assertEquals(List.of("element"), report.memoizationCandidates().stream().map(Backtracking.Entry::name).toList());
+    assertEquals(List.of("memoize element: 2 of 7 evaluations are redundant, wasting 4 characters"), report.recommendations());
+  }
+
+  @Test
+  void testReorderRecommendation() {
+    var report = Backtracking.analyze(of('a').or(of('b')).star(), List.of("bbba"));
+    var recommendations = report.recommendations().stream().filter(each -> each.startsWith("reorder ")).toList();
+    assertEquals(1, recommendations.size());
+    assertTrue(recommendations.get(0).endsWith(": alternative 1 succeeds 3 times, more often than alternative 0 (1 times)"), recommendations.get(0));
+  }
+
+}
@@ -0,0 +1,84 @@
+package petit.parser.utils;
+
+import org.junit.jupiter.api.Test;
+
+import petit.parser.combinators.SettableParser;
+import petit.parser.primitive.CharacterParser;
+import petit.parser.primitive.SpanParser;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static petit.parser.primitive.CharacterParser.any;
+import static petit.parser.primitive.CharacterParser.digit;
+import static petit.parser.primitive.CharacterParser.of;
+import static petit.parser.primitive.CharacterParser.pattern;
+import static petit.parser.primitive.CharacterParser.word;
+import static petit.parser.primitive.StringParser.ofIgnoringCase;
+
+/**
+ * Tests {@link FirstSet}.
+ */
+class FirstSetTest {
+
+  @Test
+  void testCharacter() {
+    var first = FirstSet.of(digit());
+    assertTrue(first.contains('0'));
+    assertTrue(first.contains('9'));
+    assertFalse(first.contains('a'));
+    assertFalse(first.isNullable());
+  }
+
+  @Test
+  void testCharacterPredicate() {
+    for (var parser : new CharacterParser[] { pattern("a-fX0-9"), pattern("^a-z"), word(), any(), of('\uffff') }) {
+      var first = FirstSet.of(parser);
+      for (var c = 0; c <= Character.MAX_VALUE; c++) {
+        assertEquals(parser.getMatcher().test((char) c), first.contains((char) c), parser + " " + c);
+      }
+      assertEquals(first, FirstSet.of(SpanParser.of(parser, 1, 3, SpanParser.Mode.FLATTEN)));
+    }
+  }
+
+  @Test
+  void testString() {
+    var first = FirstSet.of(ofIgnoringCase("abc"));
+    assertTrue(first.contains('a'));
+    assertTrue(first.contains('A'));
+    assertFalse(first.contains('b'));
+    assertFalse(first.isNullable());
+  }
+
+  @Test
+  void testSequence() {
+    var first = FirstSet.of(of('a').optional().seq(of('b'), of('c')));
+    assertTrue(first.contains('a'));
+    assertTrue(first.contains('b'));
+    assertFalse(first.contains('c'));
+    assertFalse(first.isNullable());
+  }
+
+  @Test
+  void testChoice() {
+    var first = FirstSet.of(of('a').or(of('b').star()));
+    assertTrue(first.contains('a'));
+    assertTrue(first.contains('b'));
+    assertTrue(first.isNullable());
+  }
+
+  @Test
+  void testRecursive() {
+    var parser = SettableParser.undefined();
+    parser.set(of('(').seq(parser, of(')')).or(digit()));
+    var first = FirstSet.of(parser);
+    assertTrue(first.contains('('));
+    assertTrue(first.contains('1'));
+    assertFalse(first.contains(')'));
+    assertFalse(first.isNullable());
+  }
+
+  @Test
+  void testUnknown() {
+    assertEquals(FirstSet.ANY, FirstSet.of(of('a').callCC((continuation, context) -> continuation.apply(context))));
+  }
+
+}
@@ -0,0 +1,116 @@
+package petit.parser.utils;
+
+import org.junit.jupiter.api.Test;
+
+import petit.parser.PetitParser;
+import petit.parser.combinators.SettableParser;
+import petit.parser.context.MutableContext;
+import pp.grammar.json.JsonParser;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static petit.parser.primitive.CharacterParser.any;
+import static petit.parser.primitive.CharacterParser.digit;
+import static petit.parser.primitive.CharacterParser.of;
+import static petit.parser.primitive.CharacterParser.word;
+
+/**
+ * Tests {@link Interpreter}.
+ */
+class InterpreterTest {
+
+  private static void assertInterpreted(PetitParser parser, String... inputs) {
+    var interpreted = Interpreter.interpret(parser);
+    for (var input : inputs) {
+      var expected = parser.parse(input);
+      var actual = interpreted.parse(input);
+      assertEquals(expected.isSuccess(), actual.isSuccess(), input);
+      assertEquals(expected.getPosition(), actual.getPosition(), input);
+      assertEquals(expected.getMessage(), actual.getMessage(), input);
+      if (expected.isSuccess()) {
+        assertEquals(expected.<Object>get(), actual.get(), input);
+      }
+      assertEquals(parser.fastParseOn(input, 0), interpreted.fastParseOn(input, 0), input);
+      var context = new MutableContext(input);
+      assertEquals(expected.isSuccess(), interpreted.parseOn(context), input);
+      assertEquals(expected.getPosition(), context.getPosition(), input);
+    }
+  }
+
+  @Test
+  void testCombinators() {
+    var parser = of('a').seq(of('b').optional("x"), digit().repeat(1, 2).flatten())
+        .or(of('c').and().seq(of('c').not("not c").optional(), of('c').token()))
+        .or(of('d').star().map((List<Character> value) -> value.size()))
+        .or(digit().flatten("number expected").trim());
+    assertInterpreted(parser, "ab1", "a12", "a123", "a", "cc", "c", "ddd", "", "x", " 1 ");
+  }
+
+  @Test
+  void testRepeating() {
+    assertInterpreted(word().starGreedy(digit()).seq(digit()), "ab1", "a1b2", "12", "1", "ab", "");
+    assertInterpreted(word().repeatGreedy(digit(), 1, 2).seq(digit()), "ab1", "a1", "abc1", "1", "");
+    assertInterpreted(any().starLazy(of('*')).seq(of('*')), "ab*c*", "*", "ab", "");
+    assertInterpreted(any().repeatLazy(of('*'), 1, 2).seq(of('*')), "ab*", "a*", "abc*", "*", "");
+  }
+
+  @Test
+  void testDeepNesting() {
+    var parser = SettableParser.undefined();
+    parser.set(of('(').seq(parser, of(')')).or(digit()));
+    var input = "(".repeat(100_000) + "1" + ")".repeat(100_000);
+    var interpreted = Interpreter.interpret(parser.end());
+    assertEquals(input.length(), interpreted.fastParseOn(input, 0));
+    var result = interpreted.parse(input.substring(1));
+    assertTrue(result.isFailure());
+    assertEquals(input.length() - 2, result.getPosition());
+  }
+
+  @Test
+  void testMaxDepth() {
+    var parser = SettableParser.undefined();
+    parser.set(of('(').seq(parser, of(')')).or(digit()));
+    var interpreted = Interpreter.interpret(parser.end(), 100);
+    assertTrue(interpreted.accept("((1))"));
+    var result = interpreted.parse("(".repeat(100) + "1" + ")".repeat(100));
+    assertTrue(result.isFailure());
+    assertEquals("maximum depth of 100 exceeded", result.getMessage());
+    assertThrows(IllegalArgumentException.class, () -> Interpreter.interpret(parser, 0));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testGrammarParser() {
+    var depth = 100_000;
+    var input = "[".repeat(depth) + "]".repeat(depth);
+    var interpreted = Interpreter.interpret(new JsonParser());
+    assertTrue(interpreted.accept(input));
+    List<Object> value = interpreted.parse(input).get();
+    for (var i = 1; i < depth; i++) {
+      value = (List<Object>) value.get(0);
+    }
+    assertTrue(value.isEmpty());
+    assertInterpreted(new JsonParser(), "[1, {\"a\": [true, null]}]", "[1, ", "{\"a\" 1}");
+  }
+
+  @Test
+  void testGrammarParserMaxDepth() {
+    var input = "[".repeat(10_000) + "]".repeat(10_000);
+    var result = Interpreter.interpret(new JsonParser(), 1000).parse(input);
+    assertTrue(result.isFailure());
+    assertEquals("maximum depth of 1000 exceeded", result.getMessage());
+    assertTrue(Interpreter.interpret(new JsonParser(), 1000).parse("[[1]]").isSuccess());
+  }
+
+  @Test
+  void testCopy() {
+    var interpreted = Interpreter.interpret(digit().star().end(), 10);
+    var copy = interpreted.copy();
+    assertEquals(3, copy.fastParseOn("123", 0));
+    assertEquals(10, copy.getMaxDepth());
+    assertTrue(copy.isEqualTo(interpreted));
+    assertFalse(copy.isEqualTo(Interpreter.interpret(digit().star().end())));
+  }
+
+}
@@ -0,0 +1,108 @@
+package petit.parser.utils;
+
+import org.junit.jupiter.api.Test;
+
+import petit.parser.PetitParser;
+import petit.parser.context.MutableContext;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static petit.parser.primitive.CharacterParser.digit;
+import static petit.parser.primitive.CharacterParser.letter;
+import static petit.parser.primitive.CharacterParser.of;
+import static petit.parser.primitive.CharacterParser.word;
+
+/**
+ * Tests {@link Metrics}.
+ */
+class MetricsTest {
+
+  private static Metrics.Snapshot snapshot(Metrics metrics, String name) {
+    return metrics.getMeters().stream().filter(each -> each.getName().equals(name)).findFirst().orElseThrow().snapshot();
+  }
+
+  @Test
+  void testCounters() {
+    var metrics = new Metrics(snapshot -> {}, 1);
+    var number = metrics.meter(digit().plus().flatten(), "number");
+    var pair = metrics.meter(number.seq(of(','), number), "pair");
+    var parser = pair.or(number);
+    assertTrue(parser.parse("12,345").isSuccess());
+    assertTrue(parser.parse("12;").isSuccess());
+    var context = new MutableContext("12,3");
+    assertTrue(parser.parseOn(context));
+    assertEquals(4, parser.fastParseOn("12,3", 0));
+    var pairs = snapshot(metrics, "pair");
+    assertEquals(4, pairs.invocations());
+    assertEquals(3, pairs.successes());
+    assertEquals(1, pairs.failures());
+    assertEquals(6 + 4 + 4, pairs.consumed());
+    assertEquals(2, pairs.backtracked());
+    assertEquals(4, pairs.samples());
+    assertTrue(pairs.estimatedNanoseconds() > 0);
+    var numbers = snapshot(metrics, "number");
+    assertEquals(8, numbers.invocations());
+    assertEquals(8, numbers.successes());
+    assertEquals(0, numbers.failures());
+  }
+
+  @Test
+  void testOn() {
+    var metrics = new Metrics(snapshot -> {});
+    var source = letter().seq(word().star()).flatten();
+    var parser = metrics.on(source);
+    assertEquals(5, metrics.getMeters().size());
+    assertEquals("ab123", parser.parse("ab123").get());
+    assertTrue(parser.parse("1").isFailure());
+    var root = metrics.getMeters().get(0).snapshot();
+    assertEquals(2, root.invocations());
+    assertEquals(1, root.successes());
+    assertEquals(1, root.failures());
+    assertEquals(5, root.consumed());
+    assertTrue(metrics.getMeters().get(0).getName().startsWith("FlattenParser"));
+    assertFalse(parser.isEqualTo(source));
+  }
+
+  @Test
+  void testPublish() {
+    var published = new ArrayList<Metrics.Snapshot>();
+    var metrics = new Metrics(published::add);
+    var parser = metrics.meter(digit(), "digit");
+    for (var i = 0; i < 100; i++) {
+      parser.parse("1");
+    }
+    metrics.publish();
+    assertEquals(1, published.size());
+    assertEquals("digit", published.get(0).name());
+    assertEquals(100, published.get(0).invocations());
+    assertTrue(published.get(0).samples() <= 100);
+    assertEquals(7, published.get(0).toString().split("\t").length);
+    metrics.reset();
+    metrics.publish();
+    assertEquals(0, published.get(1).invocations());
+  }
+
+  @Test
+  void testConcurrent() throws InterruptedException {
+    var metrics = new Metrics(snapshot -> {}, 16);
+    PetitParser parser = metrics.meter(digit().plus().flatten(), "number").end();
+    var executor = Executors.newFixedThreadPool(8);
+    for (var i = 0; i < 1000; i++) {
+      executor.execute(() -> parser.parse("12345"));
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+    var numbers = snapshot(metrics, "number");
+    assertEquals(1000, numbers.invocations());
+    assertEquals(5000, numbers.consumed());
+  }
+
+  @Test
+  void testInvalidSamplingInterval() {
+    assertThrows(IllegalArgumentException.class, () -> new Metrics(snapshot -> {}, 0));
+  }
+
+}
@@ -2,10 +2,29 @@ package petit.parser.utils;
 
 import org.junit.jupiter.api.Test;
 
+import petit.parser.PetitParser;
+import petit.parser.combinators.ChoiceParser;
+import petit.parser.combinators.DispatchChoiceParser;
+import petit.parser.combinators.MemoParser;
+import petit.parser.combinators.SettableParser;
+import petit.parser.context.MutableContext;
+import petit.parser.primitive.EpsilonParser;
+import petit.parser.primitive.SpanParser;
+import petit.parser.primitive.StringParser;
 import petit.parser.utils.Optimizer;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static petit.parser.primitive.CharacterParser.lowerCase;
+import static petit.parser.primitive.CharacterParser.digit;
+import static petit.parser.primitive.CharacterParser.of;
+import static petit.parser.primitive.CharacterParser.pattern;
+import static petit.parser.primitive.CharacterParser.word;
+import static petit.parser.primitive.StringParser.ofIgnoringCase;
 
 /**
  * Tests {@link Optimizer}.
@@ -49,4 +68,221 @@ class OptimizerTest {
     assertEquals(output.getChildren().get(0), output.getChildren().get(1));
   }
 
+  @Test
+  void testRemoveDuplicatesRecursive() {
+    var first = SettableParser.undefined();
+    first.set(of('(').seq(first, of(')')).or(digit()));
+    var second = SettableParser.undefined();
+    second.set(of('(').seq(second, of(')')).or(digit()));
+    var output = new Optimizer().removeDuplicates().transform(first.seq(second));
+    assertEquals(first.structuralHash(), second.structuralHash());
+    assertEquals(output.getChildren().get(0), output.getChildren().get(1));
+    assertTrue(output.accept("((1))(2)"));
+  }
+
+  @Test
+  void testRemoveDuplicatesMutuallyRecursive() {
+    var first = expression();
+    var second = expression();
+    var output = new Optimizer().removeDuplicates().transform(of('a').seq(first).or(second));
+    assertEquals(first.structuralHash(), second.structuralHash());
+    assertSame(output.getChildren().get(0).getChildren().get(1), output.getChildren().get(1));
+    assertTrue(output.accept("a(1+2)+3"));
+    assertTrue(output.accept("((1))+2"));
+    assertFalse(output.accept("(1+)"));
+  }
+
+  private static PetitParser expression() {
+    var expression = SettableParser.undefined();
+    var term = SettableParser.undefined();
+    expression.set(term.seq(of('+'), expression).or(term));
+    term.set(of('(').seq(expression, of(')')).or(digit()));
+    return expression;
+  }
+
+  @Test
+  void testRemoveDuplicatesLarge() {
+    var alternatives = new ArrayList<PetitParser>();
+    for (var i = 0; i < 10_000; i++) {
+      alternatives.add(StringParser.of("k" + (i % 1000)).seq(digit().plus().flatten()));
+    }
+    var output = new Optimizer().removeDuplicates().transform(new ChoiceParser(alternatives.toArray(PetitParser[]::new)));
+    var uniques = Collections.newSetFromMap(new IdentityHashMap<PetitParser, Boolean>());
+    uniques.addAll(output.getChildren());
+    assertEquals(1000, uniques.size());
+    assertEquals(1, uniques.stream().map(each -> each.getChildren().get(1)).distinct().count());
+    assertTrue(output.accept("k999123"));
+  }
+
+  @Test
+  void testMemoizeAll() {
+    var input = lowerCase().plus().seq(of('1')).or(lowerCase().plus().seq(of('2')));
+    var output = new Optimizer().memoizeAll().transform(input);
+    assertTrue(output instanceof MemoParser);
+    assertEquals(5, Mirror.of(output).stream().filter(parser -> parser instanceof MemoParser).count());
+    assertEquals(input.parse("ab2").<Object>get(), output.parse("ab2").get());
+    assertEquals(input.parse("ab3").getMessage(), output.parse("ab3").getMessage());
+    assertEquals(input.fastParseOn("ab1", 0), output.fastParseOn("ab1", 0));
+  }
+
+  @Test
+  void testDispatchChoices() {
+    var input = of('a').seq(of('b'))
+        .or(digit().plus(), of('a').seq(of('c')), ofIgnoringCase("x").star(), of('\u00e9'));
+    var output = new Optimizer().dispatchChoices().transform(input);
+    assertTrue(output instanceof DispatchChoiceParser);
+    for (var each : new String[] { "ab", "ac", "ad", "12", "xX", "X", "", "\u00e9", "\u00e8", "-" }) {
+      var expected = input.parse(each);
+      var actual = output.parse(each);
+      assertEquals(expected.isSuccess(), actual.isSuccess(), each);
+      assertEquals(expected.getPosition(), actual.getPosition(), each);
+      assertEquals(expected.getMessage(), actual.getMessage(), each);
+      assertEquals(input.fastParseOn(each, 0), output.fastParseOn(each, 0), each);
+      var context = new MutableContext(each);
+      assertEquals(input.parseOn(context), output.parseOn(context.reset(each, 0)), each);
+      assertEquals(expected.getPosition(), context.getPosition(), each);
+    }
+  }
+
+  @Test
+  void testDispatchChoicesFailure() {
+    var input = of('a').or(of('b'), of('c'));
+    var output = new Optimizer().dispatchChoices().transform(input);
+    assertTrue(output instanceof DispatchChoiceParser);
+    assertEquals("'c' expected", output.parse("x").getMessage());
+    assertEquals("'c' expected", output.parse("").getMessage());
+    assertEquals('b', output.parse("b").<Character>get());
+  }
+
+  @Test
+  void testDispatchChoicesFailureActivations() {
+    var activations = new int[3];
+    var alternatives = new PetitParser[] { of('a').seq(of('b')), of('a').seq(of('c'), of('d')), of('b') };
+    var counted = new PetitParser[alternatives.length];
+    var firsts = new FirstSet[alternatives.length];
+    for (var i = 0; i < alternatives.length; i++) {
+      var index = i;
+      counted[i] = alternatives[i].callCC((continuation, context) -> {
+        activations[index]++;
+        return continuation.apply(context);
+      });
+      firsts[i] = FirstSet.of(alternatives[i]);
+    }
+    var joiner = new FailureJoiner.SelectFarthestJoined();
+    var expected = new ChoiceParser(joiner, alternatives);
+    var output = new DispatchChoiceParser(joiner, counted, firsts);
+    for (var each : new String[] { "ax", "acx", "x", "" }) {
+      Arrays.fill(activations, 0);
+      var result = output.parse(each);
+      assertEquals(expected.parse(each).getPosition(), result.getPosition(), each);
+      assertEquals(expected.parse(each).getMessage(), result.getMessage(), each);
+      assertArrayEquals(new int[] { 1, 1, 1 }, activations, each);
+      Arrays.fill(activations, 0);
+      var context = new MutableContext(each);
+      assertFalse(output.parseOn(context), each);
+      assertEquals(result.getPosition(), context.getPosition(), each);
+      assertEquals(result.getMessage(), context.getMessage(), each);
+      assertArrayEquals(new int[] { 1, 1, 1 }, activations, each);
+    }
+  }
+
+  @Test
+  void testDispatchChoicesReused() {
+    var settable = SettableParser.with(of('a'));
+    var input = settable.or(of('b'));
+    var optimizer = new Optimizer().dispatchChoices();
+    var first = optimizer.transform(input);
+    assertTrue(first.accept("a"));
+    assertFalse(first.accept("c"));
+    settable.set(of('c'));
+    var second = optimizer.transform(input);
+    assertTrue(second instanceof DispatchChoiceParser);
+    assertTrue(second.accept("c"));
+    assertFalse(second.accept("a"));
+    assertTrue(second.accept("b"));
+  }
+
+  @Test
+  void testDispatchChoicesUnrestricted() {
+    var input = lowerCase().star().or(of('a').optional());
+    var output = new Optimizer().dispatchChoices().transform(input);
+    assertFalse(output instanceof DispatchChoiceParser);
+  }
+
+  @Test
+  void testFuseSpans() {
+    var input = digit().plus().flatten().seq(of('-'), pattern("a-zA-Z").repeat(2, 3), word().star(), digit().star().flatten("digits"));
+    var output = new Optimizer().fuseSpans().transform(input);
+    var children = output.getChildren();
+    assertTrue(children.get(0) instanceof SpanParser);
+    assertTrue(children.get(2) instanceof SpanParser);
+    assertTrue(children.get(3) instanceof SpanParser);
+    assertTrue(children.get(4) instanceof SpanParser);
+    for (var each : new String[] { "12-ab", "12-abcd_1", "1-a", "-ab", "", "1", "123-ABC12" }) {
+      var expected = input.parse(each);
+      var actual = output.parse(each);
+      assertEquals(expected.isSuccess(), actual.isSuccess(), each);
+      assertEquals(expected.getPosition(), actual.getPosition(), each);
+      assertEquals(expected.getMessage(), actual.getMessage(), each);
+      if (expected.isSuccess()) {
+        assertEquals(expected.<Object>get(), actual.get(), each);
+      }
+      assertEquals(input.fastParseOn(each, 0), output.fastParseOn(each, 0), each);
+      var context = new MutableContext(each);
+      assertEquals(input.parseOn(context), output.parseOn(context.reset(each, 0)), each);
+      assertEquals(expected.getPosition(), context.getPosition(), each);
+    }
+  }
+
+  @Test
+  void testFuseSpansFailure() {
+    var input = digit().repeat(2, 4).flatten("number expected");
+    var output = new Optimizer().fuseSpans().transform(input);
+    assertTrue(output instanceof SpanParser);
+    var failure = output.parse("1a");
+    assertEquals(0, failure.getPosition());
+    assertEquals("number expected", failure.getMessage());
+    assertEquals(4, output.fastParseOn("12345", 0));
+    assertEquals(input.parse("12345").<String>get(), output.parse("12345").get());
+  }
+
+  private static void assertSameResults(PetitParser input, PetitParser output, String... inputs) {
+    for (var each : inputs) {
+      var expected = input.parse(each);
+      var actual = output.parse(each);
+      assertEquals(expected.isSuccess(), actual.isSuccess(), each);
+      assertEquals(expected.getPosition(), actual.getPosition(), each);
+      assertEquals(expected.getMessage(), actual.getMessage(), each);
+      if (expected.isSuccess()) {
+        assertEquals(expected.<Object>get(), actual.get(), each);
+      }
+      assertEquals(input.fastParseOn(each, 0), output.fastParseOn(each, 0), each);
+    }
+  }
+
+  @Test
+  void testFlattenNestedChoices() {
+    var input = new ChoiceParser(of('a'), new ChoiceParser(of('b'), new ChoiceParser(of('c'), new EpsilonParser(), of('d'))), of('e'));
+    var output = new Optimizer().flattenNested().transform(input);
+    assertEquals(4, output.getChildren().size());
+    assertTrue(output.getChildren().get(3) instanceof EpsilonParser);
+    assertSameResults(input, output, "a", "b", "c", "d", "e", "");
+    var farthest = of('a').or(of('b').or(new FailureJoiner.SelectFarthestJoined(), of('c')));
+    assertEquals(2, new Optimizer().flattenNested().transform(farthest).getChildren().size());
+  }
+
+  @Test
+  void testFlattenNestedSequences() {
+    var nested = of('a').seq(of('b').seq(new EpsilonParser(), of('c')), digit());
+    var input = nested.flatten().seq(nested, nested.flatten("abc expected"), nested.not());
+    var output = new Optimizer().flattenNested().transform(input);
+    var children = output.getChildren();
+    assertEquals(4, children.get(0).getChildren().get(0).getChildren().size());
+    assertEquals(3, children.get(1).getChildren().size());
+    var merged = children.get(2).getChildren().get(0).getChildren();
+    assertEquals(2, merged.size());
+    assertEquals("abc", ((StringParser) merged.get(0)).getValue());
+    assertSameResults(input, output, "abc1abc1abc1", "abc1abc1abc1a", "abd1", "abc1abc1abx", "");
+  }
+
 }
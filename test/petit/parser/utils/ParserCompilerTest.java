@@ -0,0 +1,96 @@
+package petit.parser.utils;
+
+import org.junit.jupiter.api.Test;
+
+import petit.parser.PetitParser;
+import petit.parser.combinators.ChoiceParser;
+import petit.parser.combinators.SettableParser;
+import petit.parser.context.MutableContext;
+import petit.parser.primitive.StringParser;
+import pp.grammar.json.JsonParser;
+import pp.grammar.xml.XmlParser;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static petit.parser.primitive.CharacterParser.digit;
+import static petit.parser.primitive.CharacterParser.of;
+import static petit.parser.primitive.CharacterParser.whitespace;
+
+/**
+ * Tests {@link ParserCompiler}.
+ */
+class ParserCompilerTest {
+
+  private static void assertCompiled(PetitParser parser, String... inputs) {
+    var compiled = ParserCompiler.compile(parser);
+    for (var input : inputs) {
+      var expected = parser.parse(input);
+      var actual = compiled.parse(input);
+      assertEquals(expected.isSuccess(), actual.isSuccess(), input);
+      assertEquals(expected.getPosition(), actual.getPosition(), input);
+      assertEquals(expected.getMessage(), actual.getMessage(), input);
+      if (expected.isSuccess()) {
+        assertEquals(expected.<Object>get(), actual.get(), input);
+      }
+      assertEquals(parser.fastParseOn(input, 0), compiled.fastParseOn(input, 0), input);
+      var context = new MutableContext(input);
+      assertEquals(expected.isSuccess(), compiled.parseOn(context), input);
+      assertEquals(expected.getPosition(), context.getPosition(), input);
+    }
+  }
+
+  @Test
+  void testCombinators() {
+    var parser = of('a').seq(of('b').optional("x"), digit().repeat(1, 2).flatten())
+        .or(of('c').and().seq(of('c').not("not c").optional(), of('c').token()))
+        .or(of('d').star().map((List<Character> value) -> value.size()));
+    assertCompiled(parser, "ab1", "a12", "a123", "a", "cc", "c", "ddd", "", "x");
+  }
+
+  @Test
+  void testFlattenWithMessage() {
+    var parser = digit().plus().flatten("number expected").trim();
+    assertCompiled(parser, " 12 ", "1", "", "x");
+  }
+
+  @Test
+  void testRecursion() {
+    var parser = SettableParser.undefined();
+    parser.set(of('(').seq(parser, of(')')).or(digit()));
+    assertCompiled(parser.end(), "1", "(1)", "((2))", "((2)", "()", "");
+  }
+
+  @Test
+  void testJsonGrammar() {
+    assertCompiled(new JsonParser(), "[]", " [ \"a\" , \"b\" ] ", "{\"object\":{\"1\": 2}}", "[true, false, null]",
+        "-12.34e-1", "\"foo \\\"bar\\\" \\u00e4\"", "[1, {\"a\": [true, null]}]", "[1, ", "{\"a\" 1}", "");
+  }
+
+  @Test
+  void testXmlGrammar() {
+    assertCompiled(new XmlParser(), "<?xml version=\"1.0\"?><data />", "<schema key=\"value\"/>",
+        "<!DOCTYPE root SYSTEM 'uri-reference'><root><a b='c'>text &amp; more<!-- comment --><![CDATA[<x>]]></a></root>",
+        "<?xml foo?>\n<!DOCTYPE name [ something ]>\n<ns:foo attr=\"not namespaced\">\n  <ns:element/>\n  <?processing instruction?>\n</ns:foo>",
+        "<a", "<a b=>", "");
+  }
+
+  @Test
+  void testTooLarge() {
+    var alternatives = new PetitParser[20_000];
+    for (var i = 0; i < alternatives.length; i++) {
+      alternatives[i] = StringParser.of("k" + i).seq(digit());
+    }
+    var exception = assertThrows(IllegalStateException.class, () -> ParserCompiler.compile(new ChoiceParser(alternatives)));
+    assertEquals("Grammar too large to compile", exception.getMessage());
+  }
+
+  @Test
+  void testCopy() {
+    var compiled = ParserCompiler.compile(whitespace().star().end());
+    var copy = compiled.copy();
+    assertEquals(3, copy.fastParseOn("   ", 0));
+    assertTrue(copy.isEqualTo(compiled));
+  }
+
+}
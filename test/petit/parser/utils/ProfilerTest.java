@@ -4,9 +4,14 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
 import petit.parser.ExamplesTest;
+import petit.parser.tools.GrammarDefinition;
 import petit.parser.utils.Profiler;
 
 import java.util.ArrayList;
+import java.util.List;
+
+import static petit.parser.primitive.CharacterParser.digit;
+import static petit.parser.primitive.CharacterParser.of;
 
 /**
  * Tests {@link Profiler}.
@@ -59,6 +64,80 @@ class ProfilerTest {
     assertTrue(actual.get(4).elapsedNanoseconds > 0);
   }
 
+  @Test
+  void testAcceptProfile() {
+    var parsed = new ArrayList<Profiler.Profile>();
+    var accepted = new ArrayList<Profiler.Profile>();
+    assertTrue(Profiler.on(ExamplesTest.IDENTIFIER, parsed::add).parse("ab123").isSuccess());
+    assertTrue(Profiler.on(ExamplesTest.IDENTIFIER, accepted::add).accept("ab123"));
+    assertEquals(parsed.size(), accepted.size());
+    for (var i = 0; i < parsed.size(); i++) {
+      assertEquals(parsed.get(i).parser.toString(), accepted.get(i).parser.toString());
+      assertEquals(parsed.get(i).activationCount, accepted.get(i).activationCount);
+      assertEquals(parsed.get(i).totalActivationCount, accepted.get(i).totalActivationCount);
+    }
+  }
+
+  @Test
+  void testSelfProfile() {
+    var actual = new ArrayList<Profiler.Profile>();
+    assertTrue(Profiler.on(ExamplesTest.IDENTIFIER, actual::add).parse("ab123").isSuccess());
+    var root = actual.get(0);
+    assertTrue(root.selfNanoseconds < root.elapsedNanoseconds);
+    assertTrue(actual.stream().mapToLong(each -> each.selfNanoseconds).sum() <= root.elapsedNanoseconds);
+    for (var profile : actual) {
+      assertTrue(profile.selfNanoseconds <= profile.elapsedNanoseconds);
+      assertTrue(profile.selfAllocatedBytes <= profile.allocatedBytes);
+      assertTrue(profile.selfAllocatedBytes >= 0);
+      assertEquals(profile.parser.toString(), profile.name);
+    }
+    assertEquals(1, actual.get(3).failureCount);
+    assertEquals(0.2, actual.get(3).backtrackingRatio());
+    assertEquals(0.0, actual.get(4).backtrackingRatio());
+  }
+
+  @Test
+  void testFailingBacktracking() {
+    var actual = new ArrayList<Profiler.Profile>();
+    assertTrue(Profiler.on(ExamplesTest.IDENTIFIER, actual::add).parse("1").isFailure());
+    assertEquals(1, actual.get(0).failureCount);
+    assertEquals(1.0, actual.get(0).backtrackingRatio());
+    assertEquals(0, actual.get(2).failureCount);
+    assertEquals(0.0, actual.get(2).backtrackingRatio());
+    assertEquals(1.0, actual.get(4).backtrackingRatio());
+  }
+
+  @Test
+  void testNamedProfile() {
+    var definition = new ListDefinition();
+    var actual = new ArrayList<Profiler.Profile>();
+    assertTrue(Profiler.on(definition.build(), definition::nameOf, actual::add).parse("1,2,3").isSuccess());
+    var names = actual.stream().map(each -> each.name).toList();
+    assertTrue(names.containsAll(List.of("start", "list", "element")));
+    var element = actual.get(names.indexOf("element"));
+    assertEquals(4, element.totalActivationCount);
+  }
+
+  @Test
+  void testCollapsed() {
+    var definition = new ListDefinition();
+    var lines = new ArrayList<String>();
+    assertTrue(Profiler.collapsed(definition.build(), definition::nameOf, lines::add).accept("1,2,3"));
+    assertTrue(lines.stream().anyMatch(line -> line.startsWith("start ")));
+    for (var line : lines) {
+      assertTrue(line.matches("start(;list)*(;element)? \\d+"), line);
+    }
+    assertTrue(lines.stream().anyMatch(line -> line.startsWith("start;list;list;list;element ")));
+  }
+
+  static class ListDefinition extends GrammarDefinition {
+    ListDefinition() {
+      def("start", ref("list").end());
+      def("list", ref("element").seq(of(',').flatten()).seq(ref("list")).or(ref("element")));
+      def("element", digit().plus().flatten());
+    }
+  }
+
   @Test
   void testProfileToString() {
     var profiles = new ArrayList<Profiler.Profile>();
@@ -0,0 +1,96 @@
+package pp.grammar.xml;
+
+import org.junit.Test;
+
+import petit.parser.PetitParser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link XmlEventParser}.
+ */
+public class XmlEventParserTest {
+
+  private final List<String> events = new ArrayList<>();
+
+  private final PetitParser parser = new XmlEventParser(new XmlHandler() {
+    @Override public void startDocument() { events.add("startDocument"); }
+    @Override public void endDocument() { events.add("endDocument"); }
+    @Override public void startElement(String name) { events.add("startElement " + name); }
+    @Override public void attribute(String name, String value) { events.add("attribute " + name + "=" + value); }
+    @Override public void endElement(String name) { events.add("endElement " + name); }
+    @Override public void text(String text) { events.add("text " + text); }
+    @Override public void cdata(String text) { events.add("cdata " + text); }
+    @Override public void comment(String text) { events.add("comment " + text); }
+    @Override public void processing(String target, String text) { events.add("processing " + target + " " + text); }
+    @Override public void doctype(String text) { events.add("doctype " + text); }
+  });
+
+  @Test
+  public void testEvents() {
+    assertTrue(parser.parse("<?xml version=\"1.0\"?>\n"
+        + "<!DOCTYPE name [ something ]>\n"
+        + "<ns:foo attr=\"not namespaced\" n1:ans='namespace 1'>"
+        + "<element/>"
+        + "<ns:element a=\"1\">text &amp; more</ns:element>"
+        + "<!-- comment -->"
+        + "<![CDATA[cdata]]>"
+        + "<?processing instruction?>"
+        + "</ns:foo>").isSuccess());
+    assertEquals(Arrays.asList(
+        "startDocument",
+        "processing xml version=\"1.0\"",
+        "doctype name [ something ]",
+        "startElement ns:foo",
+        "attribute attr=not namespaced",
+        "attribute n1:ans=namespace 1",
+        "startElement element",
+        "endElement element",
+        "startElement ns:element",
+        "attribute a=1",
+        "text text & more",
+        "endElement ns:element",
+        "comment  comment ",
+        "cdata cdata",
+        "processing processing instruction",
+        "endElement ns:foo",
+        "endDocument"), events);
+  }
+
+  @Test
+  public void testFailure() {
+    assertTrue(parser.parse("<root><a>").isFailure());
+    assertEquals(Arrays.asList("startDocument", "startElement root", "startElement a"), events);
+  }
+
+  @Test
+  public void testTrailingContent() {
+    assertTrue(parser.parse("<root/>trailing").isFailure());
+    assertEquals(Arrays.asList("startDocument", "startElement root", "endElement root"), events);
+  }
+
+  @Test
+  public void testMismatchedEnd() {
+    assertThrows(IllegalStateException.class, () -> parser.parse("<root><a></b></root>"));
+  }
+
+  @Test
+  public void testDeepNesting() {
+    var input = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      input.append("<e>");
+    }
+    for (int i = 0; i < 200; i++) {
+      input.append("</e>");
+    }
+    assertTrue(parser.parse(input.toString()).isSuccess());
+    assertEquals(402, events.size());
+  }
+
+}
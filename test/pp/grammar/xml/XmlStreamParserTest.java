@@ -0,0 +1,128 @@
+package pp.grammar.xml;
+
+import org.junit.Test;
+
+import petit.parser.context.ReaderInput;
+import petit.parser.context.Result;
+import petit.parser.context.Token;
+import pp.grammar.xml.ast.XmlAttribute;
+import pp.grammar.xml.ast.XmlDocument;
+import pp.grammar.xml.ast.XmlName;
+import pp.grammar.xml.ast.XmlNode;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link XmlStreamParser}.
+ */
+public class XmlStreamParserTest {
+
+  private static final String DOCUMENT = "<?xml foo?>\n"
+      + "<!DOCTYPE name [ something ]>\n"
+      + "<ns:foo attr=\"not namespaced\" n1:ans=\"namespace 1\">\n"
+      + "  <element/>\n"
+      + "  <ns:element>text &amp; more text</ns:element>\n"
+      + "  <!-- comment -->\n"
+      + "  <![CDATA[cdata]]>\n"
+      + "  <?processing instruction?>\n"
+      + "</ns:foo>\n";
+
+  private final XmlStreamParser<XmlName, XmlNode, XmlAttribute> parser = new XmlStreamParser<>(new XmlBuilder());
+
+  @Test
+  public void testStream() {
+    for (int chunkSize : new int[] {1, 3, 64, 1024}) {
+      List<XmlNode> children = new ArrayList<>();
+      ReaderInput input = new ReaderInput(new StringReader(DOCUMENT), chunkSize);
+      Result result = parser.parse(input, children::add);
+      assertTrue(result.isSuccess());
+      XmlDocument expected = new XmlParser().parse(DOCUMENT).get();
+      assertEquals(expected.getRootElement().getChildren().size(), children.size());
+      for (int i = 0; i < children.size(); i++) {
+        assertEquals(expected.getRootElement().getChildren().get(i).toXmlString(), children.get(i).toXmlString());
+      }
+      XmlDocument document = result.get();
+      assertEquals(3, document.getChildren().size());
+      assertEquals(expected.getRootElement().getAttributes(), document.getRootElement().getAttributes());
+      assertTrue(document.getRootElement().getChildren().isEmpty());
+      assertThrows(IndexOutOfBoundsException.class, () -> input.charAt(0));
+    }
+  }
+
+  @Test
+  public void testEmptyElement() {
+    List<XmlNode> children = new ArrayList<>();
+    Result result = parser.parse(new StringReader("<root a='1'/> "), children::add);
+    assertTrue(result.isSuccess());
+    assertEquals("<root a=\"1\" />", result.<XmlDocument>get().getRootElement().toXmlString());
+    assertTrue(children.isEmpty());
+  }
+
+  @Test
+  public void testFailure() {
+    List<XmlNode> children = new ArrayList<>();
+    Result result = parser.parse(new StringReader("<root>\n<a/><b"), children::add);
+    assertTrue(result.isFailure());
+    assertEquals(2, children.size());
+    assertEquals(11, result.getPosition());
+    assertArrayEquals(new int[] {2, 5}, Token.lineAndColumnOf(result.getBuffer(), result.getPosition()));
+  }
+
+  @Test
+  public void testMismatchedEnd() {
+    Result result = parser.parse(new StringReader("<root><a/></toor>"), node -> {});
+    assertTrue(result.isFailure());
+    assertEquals(10, result.getPosition());
+    assertTrue(result.getMessage(), result.getMessage().startsWith("Expected </"));
+  }
+
+  @Test
+  public void testSyntaxErrorBeforeLargeContent() {
+    StringBuilder document = new StringBuilder("<root><a/><b x></b>");
+    for (int i = 0; i < 100000; i++) {
+      document.append("<c>text</c>");
+    }
+    document.append("</root>");
+    List<XmlNode> children = new ArrayList<>();
+    ReaderInput input = new ReaderInput(new StringReader(document.toString()), 64);
+    Result result = parser.parse(input, children::add);
+    assertTrue(result.isFailure());
+    assertEquals(1, children.size());
+    assertEquals(10, result.getPosition());
+    assertTrue("loaded " + input.length(), input.length() < 1024);
+  }
+
+  @Test
+  public void testWindowLimit() {
+    XmlStreamParser<XmlName, XmlNode, XmlAttribute> limited = new XmlStreamParser<>(new XmlBuilder(), 16);
+    List<XmlNode> children = new ArrayList<>();
+    Result result = limited.parse(new ReaderInput(new StringReader("<root><a/><b>0123456789012345678901234567890123456789</b><c/></root>"), 4), children::add);
+    assertTrue(result.isFailure());
+    assertEquals(1, children.size());
+    assertTrue(result.getMessage().startsWith("Window limit"));
+  }
+
+  @Test
+  public void testLineAndColumn() {
+    ReaderInput input = new ReaderInput(new StringReader("a\r\nb\rc\nd"), 2);
+    while (input.fill()) {
+      // load all input
+    }
+    assertArrayEquals(new int[] {2, 1}, input.lineAndColumnOf(3));
+    input.release(2);
+    assertArrayEquals(new int[] {2, 1}, input.lineAndColumnOf(3));
+    assertArrayEquals(new int[] {3, 1}, input.lineAndColumnOf(5));
+    input.release(6);
+    assertArrayEquals(new int[] {3, 2}, input.lineAndColumnOf(6));
+    assertArrayEquals(new int[] {4, 1}, input.lineAndColumnOf(7));
+    assertThrows(IndexOutOfBoundsException.class, () -> input.lineAndColumnOf(5));
+  }
+
+}